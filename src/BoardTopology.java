@@ -0,0 +1,112 @@
+/**
+ * The shapes a minesweeper board can take.
+ * A topology only decides which cells are next to each other, so every board shape shares the same game rules.
+ * For example:
+ * <pre>
+ *     Minesweeper minesweeper = new Minesweeper(9, 9, 10, BoardTopology.TORUS);
+ * </pre>
+ *
+ * @version 2026/10/18
+ */
+
+public enum BoardTopology {
+    /**
+     * The classic board, where every cell touches the eight cells around it and the edges are walls.
+     */
+    RECTANGLE {
+        @Override
+        public int neighboursAt(int rows, int columns, int row, int column, int neighbours[]) {
+            int count = 0;
+
+            for(int rowOffset = -1; rowOffset <= 1; rowOffset++) {
+                for(int columnOffset = -1; columnOffset <= 1; columnOffset++) {
+                    int neighbourRow = row + rowOffset;
+                    int neighbourColumn = column + columnOffset;
+
+                    if((rowOffset != 0 || columnOffset != 0) && neighbourRow > -1 && neighbourRow < rows
+                            && neighbourColumn > -1 && neighbourColumn < columns) {
+                        neighbours[count++] = neighbourRow * columns + neighbourColumn;
+                    }
+                }
+            }
+            return count;
+        }
+    },
+
+    /**
+     * A board whose edges wrap around, so the top row touches the bottom row and the left column touches the right column.
+     */
+    TORUS {
+        @Override
+        public int neighboursAt(int rows, int columns, int row, int column, int neighbours[]) {
+            int index = row * columns + column;
+            int count = 0;
+
+            for(int rowOffset = -1; rowOffset <= 1; rowOffset++) {
+                for(int columnOffset = -1; columnOffset <= 1; columnOffset++) {
+                    int neighbourRow = (row + rowOffset + rows) % rows;
+                    int neighbourColumn = (column + columnOffset + columns) % columns;
+                    int neighbour = neighbourRow * columns + neighbourColumn;
+
+                    // tiny boards wrap onto themselves, so skip the cell itself and any repeats
+                    if(neighbour != index && !contains(neighbours, count, neighbour)) {
+                        neighbours[count++] = neighbour;
+                    }
+                }
+            }
+            return count;
+        }
+    },
+
+    /**
+     * A board of hexagons laid out in rows, where every odd row is shifted half a cell to the right.
+     * Every cell touches the two cells beside it and the two closest cells in the rows above and below it.
+     */
+    HEXAGONAL {
+        private final int evenRowOffsets[][] = {{-1, -1}, {-1, 0}, {0, -1}, {0, 1}, {1, -1}, {1, 0}};
+        private final int oddRowOffsets[][] = {{-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, 0}, {1, 1}};
+
+        @Override
+        public int neighboursAt(int rows, int columns, int row, int column, int neighbours[]) {
+            int offsets[][] = row % 2 == 0 ? evenRowOffsets : oddRowOffsets;
+            int count = 0;
+
+            for(int offset[] : offsets) {
+                int neighbourRow = row + offset[0];
+                int neighbourColumn = column + offset[1];
+
+                if(neighbourRow > -1 && neighbourRow < rows && neighbourColumn > -1 && neighbourColumn < columns) {
+                    neighbours[count++] = neighbourRow * columns + neighbourColumn;
+                }
+            }
+            return count;
+        }
+    };
+
+    public static final int MAX_NEIGHBOURS = 8;
+
+    /**
+     * Finds the cells next to the given cell.
+     * The neighbours are written as flat indices (row * columns + column) to the start of the given array.
+     *
+     * @param rows       the number of rows on the board
+     * @param columns    the number of columns on the board
+     * @param row        the row of the given cell
+     * @param column     the column of the given cell
+     * @param neighbours the array the neighbours are written to, which must hold at least MAX_NEIGHBOURS values
+     * @return           the number of neighbours written
+     */
+    public abstract int neighboursAt(int rows, int columns, int row, int column, int neighbours[]);
+
+    /**
+     * Returns true if the given value is within the first count values of the given array, false otherwise.
+     */
+    private static boolean contains(int values[], int count, int value) {
+        for(int counter = 0; counter < count; counter++) {
+            if(values[counter] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,260 @@
+/**
+ * The storage behind the cells of a minesweeper board, where every cell is packed into a single byte.
+ * A store also keeps a small header of long slots, which a board uses to save its own state next to its cells.
+ * Boards are normally kept on the heap, but a board can instead be kept in a memory-mapped file,
+ * so enormous boards live outside the garbage-collected heap, survive restarts, and only page in the regions being played.
+ * For example:
+ * <pre>
+ *     CellStore store = CellStore.map(Paths.get("board.bin"));
+ *     store.ensureCapacity(rows * columns);
+ *     store.set(index, (byte) 2);
+ * </pre>
+ *
+ * @version 2026/10/18
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+abstract class CellStore {
+    static final int HEADER_SLOTS = 8;
+
+    /**
+     * Returns a new store kept on the heap.
+     */
+    static CellStore heap() {
+        return new HeapStore();
+    }
+
+    /**
+     * Returns a new store kept in the given file, which is created if it does not exist yet.
+     * The cells and the header already in the file are kept.
+     */
+    static CellStore map(Path file) throws IOException {
+        return new MappedStore(file);
+    }
+
+    /**
+     * Returns the packed cell at the given flat index.
+     */
+    abstract byte get(int index);
+
+    /**
+     * Sets the packed cell at the given flat index.
+     */
+    abstract void set(int index, byte cell);
+
+    /**
+     * Makes sure the store can hold at least the given number of cells, keeping the cells it already holds.
+     *
+     * @throws UncheckedIOException if a store kept in a file could not grow the file
+     */
+    abstract void ensureCapacity(int capacity);
+
+    /**
+     * Returns the header slot at the given position, from 0 up to HEADER_SLOTS.
+     */
+    abstract long getHeader(int slot);
+
+    /**
+     * Sets the header slot at the given position, from 0 up to HEADER_SLOTS.
+     */
+    abstract void setHeader(int slot, long value);
+
+    /**
+     * Returns true if the store keeps its cells somewhere that outlives the board, false otherwise.
+     */
+    abstract boolean isPersistent();
+
+    /**
+     * Writes any changes the store still holds in memory to where it keeps its cells.
+     */
+    abstract void flush() throws IOException;
+
+    /**
+     * Flushes the store and lets go of anything it holds open.
+     */
+    abstract void close() throws IOException;
+
+    /**
+     * Copies the given number of packed cells, starting at the given flat index, into the given array at the given offset.
+     */
+    void get(int index, byte cells[], int offset, int length) {
+        for(int counter = 0; counter < length; counter++) {
+            cells[offset + counter] = get(index + counter);
+        }
+    }
+
+    /**
+     * Sets every cell from the given index up to but not including the other given index to the given packed cell.
+     */
+    void fill(int fromIndex, int toIndex, byte cell) {
+        for(int index = fromIndex; index < toIndex; index++) {
+            set(index, cell);
+        }
+    }
+
+    /**
+     * A store that keeps its cells in a byte array on the heap.
+     */
+    private static final class HeapStore extends CellStore {
+        private byte cells[] = new byte[0];
+        private final long header[] = new long[HEADER_SLOTS];
+
+        byte get(int index) {
+            return cells[index];
+        }
+
+        void set(int index, byte cell) {
+            cells[index] = cell;
+        }
+
+        void ensureCapacity(int capacity) {
+            if(capacity > cells.length) {
+                cells = Arrays.copyOf(cells, capacity);
+            }
+        }
+
+        long getHeader(int slot) {
+            return header[slot];
+        }
+
+        void setHeader(int slot, long value) {
+            header[slot] = value;
+        }
+
+        boolean isPersistent() {
+            return false;
+        }
+
+        @Override
+        void get(int index, byte cells[], int offset, int length) {
+            System.arraycopy(this.cells, index, cells, offset, length);
+        }
+
+        @Override
+        void fill(int fromIndex, int toIndex, byte cell) {
+            Arrays.fill(cells, fromIndex, toIndex, cell);
+        }
+
+        void flush() {}
+
+        void close() {}
+    }
+
+    /**
+     * A store that keeps its cells in a memory-mapped file, after a header of HEADER_SLOTS longs.
+     * A single mapping cannot be larger than 2 GiB, so the cells are mapped in segments of 1 GiB each.
+     */
+    private static final class MappedStore extends CellStore {
+        private static final int SEGMENT_BITS = 30;
+        private static final int SEGMENT_MASK = (1 << SEGMENT_BITS) - 1;
+        private static final int HEADER_BYTES = HEADER_SLOTS * Long.BYTES;
+        private int capacity;
+        private MappedByteBuffer segments[] = new MappedByteBuffer[0];
+        private final MappedByteBuffer header;
+        private final FileChannel channel;
+
+        MappedStore(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            mapSegments((int) Math.min(Integer.MAX_VALUE, Math.max(0, channel.size() - HEADER_BYTES)));
+        }
+
+        byte get(int index) {
+            return segments[index >>> SEGMENT_BITS].get(index & SEGMENT_MASK);
+        }
+
+        void set(int index, byte cell) {
+            segments[index >>> SEGMENT_BITS].put(index & SEGMENT_MASK, cell);
+        }
+
+        void ensureCapacity(int capacity) {
+            if(capacity > this.capacity) {
+                try {
+                    mapSegments(capacity);
+                }
+                catch(IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        long getHeader(int slot) {
+            return header.getLong(slot * Long.BYTES);
+        }
+
+        void setHeader(int slot, long value) {
+            header.putLong(slot * Long.BYTES, value);
+        }
+
+        boolean isPersistent() {
+            return true;
+        }
+
+        @Override
+        void get(int index, byte cells[], int offset, int length) {
+            for(int end = index + length; index < end; ) {
+                ByteBuffer segment = segments[index >>> SEGMENT_BITS].duplicate();
+                int count = Math.min(end - index, SEGMENT_MASK + 1 - (index & SEGMENT_MASK));
+
+                segment.position(index & SEGMENT_MASK);
+                segment.get(cells, offset, count);
+                index += count;
+                offset += count;
+            }
+        }
+
+        @Override
+        void fill(int fromIndex, int toIndex, byte cell) {
+            byte chunk[] = new byte[Math.min(toIndex - fromIndex, 1 << 16)];
+
+            Arrays.fill(chunk, cell);
+            for(int index = fromIndex; index < toIndex; ) {
+                ByteBuffer segment = segments[index >>> SEGMENT_BITS].duplicate();
+                int length = Math.min(chunk.length, Math.min(toIndex - index, SEGMENT_MASK + 1 - (index & SEGMENT_MASK)));
+
+                segment.position(index & SEGMENT_MASK);
+                segment.put(chunk, 0, length);
+                index += length;
+            }
+        }
+
+        void flush() {
+            header.force();
+            for(MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+
+        void close() throws IOException {
+            flush();
+            // the mappings stay usable until they are garbage collected, but the file itself no longer has to be held open
+            channel.close();
+        }
+
+        /**
+         * Maps enough segments to hold the given number of cells, growing the file if it is too small.
+         * Only the last segment can be partly used, so it is the only one that has to be mapped again.
+         */
+        private void mapSegments(int capacity) throws IOException {
+            int segmentCount = (int) (((long) capacity + SEGMENT_MASK) >>> SEGMENT_BITS);
+            int firstChanged = Math.max(0, segments.length - 1);
+
+            segments = Arrays.copyOf(segments, segmentCount);
+            for(int segment = firstChanged; segment < segmentCount; segment++) {
+                long start = (long) segment << SEGMENT_BITS;
+                long length = Math.min(SEGMENT_MASK + 1, capacity - start);
+
+                segments[segment] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + start, length);
+            }
+            this.capacity = capacity;
+        }
+    }
+}
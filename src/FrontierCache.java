@@ -0,0 +1,208 @@
+/**
+ * A bounded cache of results keyed by the frontier hash of a minesweeper board.
+ * It is used to remember solver and probability results, so positions that repeat across games are not worked out again.
+ * Lookups are lock free and can be made from any number of threads at once.
+ * When the cache is full, the CLOCK algorithm picks which result to evict:
+ * a hand sweeps over the cached results, giving every result that was used since the hand last passed it a second chance.
+ * For example:
+ * <pre>
+ *     FrontierCache&lt;double[]&gt; cache = new FrontierCache&lt;&gt;(4096);
+ *     double probabilities[] = cache.computeIfAbsent(minesweeper.getFrontierHash(), hash -&gt; solve(minesweeper));
+ * </pre>
+ * Results that also depend on something outside the frontier, such as the number of mines left, should mix it into the key.
+ *
+ * @version 2026/10/18
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+public final class FrontierCache<V> {
+    private final int capacity;
+    private int hand;
+    private int size;
+    private final Entry<V> ring[];
+    private final ConcurrentHashMap<Long, Entry<V>> entries;
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder insertions = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates an empty cache that holds up to capacity results.
+     */
+    @SuppressWarnings("unchecked")
+    public FrontierCache(int capacity) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+        ring = (Entry<V>[]) new Entry<?>[capacity];
+        entries = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+    }
+
+    /**
+     * Returns the cached result for the given key, or null if there is none.
+     *
+     * @param key the frontier hash of the position
+     */
+    public V get(long key) {
+        Entry<V> entry = entries.get(key);
+
+        if(entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        entry.isReferenced = true;
+        return entry.value;
+    }
+
+    /**
+     * Returns the cached result for the given key, working it out with the given function if there is none.
+     * The function runs outside of any lock, so two threads missing on the same key at once may both run it.
+     * A null result is returned but not cached, since get could not tell it apart from a result that is missing.
+     *
+     * @param key      the frontier hash of the position
+     * @param function the function that works out the result
+     */
+    public V computeIfAbsent(long key, LongFunction<V> function) {
+        V value = get(key);
+
+        if(value == null) {
+            value = function.apply(key);
+            if(value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Caches the given result for the given key, evicting another result if the cache is full.
+     *
+     * @param key   the frontier hash of the position
+     * @param value the result
+     */
+    public synchronized void put(long key, V value) {
+        Entry<V> entry = entries.get(key);
+
+        if(entry != null) {
+            entry.value = value;
+            entry.isReferenced = true;
+            return;
+        }
+
+        entry = new Entry<>(key, value);
+        if(size < capacity) {
+            ring[size++] = entry;
+        }
+        else {
+            while(ring[hand].isReferenced) {
+                ring[hand].isReferenced = false;
+                hand = (hand + 1) % capacity;
+            }
+            entries.remove(ring[hand].key);
+            evictions.increment();
+            ring[hand] = entry;
+            hand = (hand + 1) % capacity;
+        }
+        entries.put(key, entry);
+        insertions.increment();
+    }
+
+    /**
+     * Removes every cached result and resets the statistics.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        for(int index = 0; index < size; index++) {
+            ring[index] = null;
+        }
+        size = 0;
+        hand = 0;
+        evictions.reset();
+        hits.reset();
+        insertions.reset();
+        misses.reset();
+    }
+
+    /**
+     * Returns the greatest number of results the cache can hold.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of results currently cached.
+     */
+    public int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups that found a result.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that did not find a result.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of results that were evicted to make room for new ones.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the fraction of lookups that found a result.
+     */
+    public double getHitRate() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Returns the fraction of newly cached results that evicted another result.
+     */
+    public double getEvictionRate() {
+        long insertions = this.insertions.sum();
+
+        return insertions == 0 ? 0 : (double) getEvictions() / insertions;
+    }
+
+    /**
+     * Returns a nicely formatted string of the cache's statistics.
+     */
+    @Override
+    public String toString() {
+        return getClass().getName() + "[size=" + getSize() + ", capacity=" + capacity + ", hits=" + getHits() +
+                ", misses=" + getMisses() + ", evictions=" + getEvictions() + ", hitRate=" + getHitRate() +
+                ", evictionRate=" + getEvictionRate() + "]";
+    }
+
+    /**
+     * A private class used to hold a single cached result.
+     */
+    private static class Entry<V> {
+        private final long key;
+        private volatile V value;
+        private volatile boolean isReferenced;
+
+        Entry(long key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
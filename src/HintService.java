@@ -0,0 +1,88 @@
+/**
+ * A class used to work out hints in the background, so the event-dispatch thread never waits on the solver.
+ * Each request copies the board on the calling thread and hands the copy to a single background thread.
+ * A new request cancels the one before it, and only the newest request's hint is ever delivered,
+ * on the event-dispatch thread through SwingUtilities.invokeLater.
+ * For example:
+ * <pre>
+ *     HintService hintService = new HintService();
+ *     hintService.requestHint(minesweeper, hint -&gt; System.out.println(hint));
+ * </pre>
+ *
+ * @version 2026/10/18
+ */
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+public final class HintService {
+    private int generation;
+    private Future<?> pending;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Minesweeper hints");
+
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    /**
+     * Starts working out a hint for the current position of the given game, cancelling any hint still being worked out.
+     * This has to be called on the event-dispatch thread.
+     *
+     * @param game     the game
+     * @param callback called on the event-dispatch thread with the hint, or with null if there is no cell to play
+     */
+    public void requestHint(Minesweeper game, Consumer<MinesweeperSolver.Hint> callback) {
+        MinesweeperSolver solver = new MinesweeperSolver(game);
+        int requestGeneration = ++generation;
+
+        cancelPending();
+        pending = executor.submit(new Runnable() {
+            public void run() {
+                MinesweeperSolver.Hint hint = solver.findHint();
+
+                if(!Thread.currentThread().isInterrupted()) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        public void run() {
+                            // a newer request or a cancel may have come in while this hint was on its way
+                            if(requestGeneration == generation) {
+                                callback.accept(hint);
+                            }
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Cancels any hint still being worked out, so its callback is never called.
+     * This has to be called on the event-dispatch thread.
+     */
+    public void cancel() {
+        generation++;
+        cancelPending();
+    }
+
+    /**
+     * Stops the background thread.
+     */
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Interrupts the pending request, if there is one.
+     */
+    private void cancelPending() {
+        if(pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+}
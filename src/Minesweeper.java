@@ -7,64 +7,253 @@
  *     minesweeper.playAt(0, 0);
  *     System.out.println(minesweeper);
  * </pre>
+ * A board can also be kept in a file rather than on the heap, so it can be far larger and picks up where it left off after a restart:
+ * <pre>
+ *     Minesweeper minesweeper = Minesweeper.create(Paths.get("board.bin"), 30000, 30000, 15, BoardTopology.RECTANGLE, 1);
+ *     minesweeper.playAt(0, 0);
+ *     minesweeper.close();
+ *     minesweeper = Minesweeper.open(Paths.get("board.bin"));
+ * </pre>
  *
  * @author Luke Sieben
  * @version 2012/09/16
  */
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Random;
 
 public class Minesweeper {
     public static final int MIN_ROW_AMOUNT = 9, MIN_COLUMN_AMOUNT = 9, MIN_MINE_PERCENTAGE = 5,
             MAX_ROW_AMOUNT = 30, MAX_COLUMN_AMOUNT = 24, MAX_MINE_PERCENTAGE = 25;
+    private boolean isLazy;
     private boolean isOver;
     private int columns;
     private int mines;
     private int rows;
     private int minePercentage;
     private int visibleCells;
-    private Cell board[][];
+    private long seed;
+    private long frontierHash;
+    private long zobristSalt;
+    private int floodFillQueue[];
+    private byte regionRow[];
+    private int neighbourStart[];
+    private int neighbours[];
+    private BoardTopology topology;
+    private NeighbourTable neighbourTable;
+    private Random random;
+    private CellStore cells;
+    private Listener listeners[] = new Listener[0];
+    private final int fillNeighbours[] = new int[BoardTopology.MAX_NEIGHBOURS];
+    private final int frontierNeighbours[] = new int[BoardTopology.MAX_NEIGHBOURS];
+    private final int hiddenNeighbours[] = new int[BoardTopology.MAX_NEIGHBOURS];
+    private final int valueNeighbours[] = new int[BoardTopology.MAX_NEIGHBOURS];
+    private static final Random seedGenerator = new Random();
     public static int EMPTY_VALUE = 0;
     public static int MINE_VALUE = -1;
+    private static final int UNKNOWN_VALUE = -2;
+    public static final int HIDDEN_STATE = 9;
+    public static final int FLAG_STATE = 10;
+
+    // every cell is packed into a byte: the value plus 2 in the low four bits, then a visible bit and a flag bit
+    private static final int VALUE_BITS = 0x0F, VISIBLE_BIT = 0x10, FLAG_BIT = 0x20;
+
+    // boards with more cells than this work out the neighbours of each cell when they need them rather than keeping a table,
+    // and boards kept in files use a far lower limit, since the table lives on the heap at around 32 bytes a cell
+    private static final int MAX_TABLE_CELLS = 1 << 22, MAX_MAPPED_TABLE_CELLS = 1 << 16;
+
+    // the header slots a board saves its state in, next to its cells
+    private static final long MAGIC = 0x4D494E4553574550L;
+    private static final int MAGIC_SLOT = 0, SIZE_SLOT = 1, MINES_SLOT = 2, SEED_SLOT = 3, VISIBLE_CELLS_SLOT = 4,
+            FRONTIER_HASH_SLOT = 5, SETTINGS_SLOT = 6;
 
     /**
      * Creates a minesweeper board of size rows by columns.
      */
     public Minesweeper(int rows, int columns, int minePercentage) {
+        this(rows, columns, minePercentage, BoardTopology.RECTANGLE);
+    }
+
+    /**
+     * Creates a minesweeper board of size rows by columns with the given topology.
+     */
+    public Minesweeper(int rows, int columns, int minePercentage, BoardTopology topology) {
+        this(rows, columns, minePercentage, topology, seedGenerator.nextLong());
+    }
+
+    /**
+     * Creates a minesweeper board of size rows by columns with the given topology.
+     * The mines are placed using the given seed, so the same seed always creates the same board.
+     */
+    public Minesweeper(int rows, int columns, int minePercentage, BoardTopology topology, long seed) {
+        this(rows, columns, minePercentage, topology, seed, true);
+    }
+
+    /**
+     * Creates a minesweeper board of size rows by columns with the given topology.
+     * The mines are placed using the given seed, so the same seed always creates the same board.
+     * A lazy board only places its mines up front and works out the number of each cell the first time that cell is played or asked about,
+     * so games that end after uncovering a small part of the board never pay for numbering all of it.
+     * A board that is not lazy numbers every cell as soon as the mines are placed,
+     * which is quicker when every number is going to be read anyway.
+     */
+    public Minesweeper(int rows, int columns, int minePercentage, BoardTopology topology, long seed, boolean isLazy) {
+        this(rows, columns, minePercentage, topology, seed, isLazy, CellStore.heap());
+    }
+
+    /**
+     * Creates a minesweeper board of size rows by columns with the given topology, whose cells are kept in the given store.
+     */
+    private Minesweeper(int rows, int columns, int minePercentage, BoardTopology topology, long seed, boolean isLazy, CellStore cells) {
+        checkSize(rows, columns);
+        MinesweeperMetrics.BoardGenerationEvent event = MinesweeperMetrics.beginBoardGeneration();
+
         isOver = false;
         visibleCells = 0;
         this.rows = rows;
         this.columns = columns;
         this.minePercentage = minePercentage;
+        this.topology = topology;
+        this.seed = seed;
+        this.isLazy = isLazy;
+        this.cells = cells;
+        random = new Random(seed);
 
         initializeBoard(rows, columns);
+        clearBoard();
         addRandomMines();
-        addNumbersAroundMines();
+        if(!isLazy) {
+            addNumbersAroundMines();
+        }
+        saveState();
+
+        MinesweeperMetrics.endBoardGeneration(event, rows, columns, mines);
+    }
+
+    /**
+     * Restores the minesweeper board saved in the given store.
+     */
+    private Minesweeper(CellStore cells) {
+        long size = cells.getHeader(SIZE_SLOT);
+        long settings = cells.getHeader(SETTINGS_SLOT);
+
+        rows = (int) (size >>> 32);
+        columns = (int) size;
+        minePercentage = (int) (cells.getHeader(MINES_SLOT) >>> 32);
+        mines = (int) cells.getHeader(MINES_SLOT);
+        seed = cells.getHeader(SEED_SLOT);
+        visibleCells = (int) cells.getHeader(VISIBLE_CELLS_SLOT);
+        frontierHash = cells.getHeader(FRONTIER_HASH_SLOT);
+        isOver = (settings & 1) != 0;
+        isLazy = (settings & 2) != 0;
+        topology = BoardTopology.values()[(int) (settings >>> 8)];
+        this.cells = cells;
+        random = new Random(seed);
+
+        initializeBoard(rows, columns);
+    }
+
+    /**
+     * Creates a lazy minesweeper board of size rows by columns with the given topology, kept in the given file rather than on the heap.
+     * Every cell takes a single byte of the file, and the file is memory-mapped, so the board lives outside the garbage-collected heap
+     * and only the regions being played are read into memory.
+     * Anything already in the file is overwritten.
+     *
+     * @param file           the file the board is kept in
+     * @param rows           the number of rows on the board
+     * @param columns        the number of columns on the board
+     * @param minePercentage the mine percentage
+     * @param topology       the topology of the board
+     * @param seed           the seed the mines are placed with
+     * @throws IOException if the file could not be opened or grown
+     * @throws IllegalArgumentException if the board would not have between 1 and Integer.MAX_VALUE cells
+     */
+    public static Minesweeper create(Path file, int rows, int columns, int minePercentage, BoardTopology topology, long seed) throws IOException {
+        // checked before the file is touched, so a board that cannot be made never leaves a file behind
+        checkSize(rows, columns);
+        return new Minesweeper(rows, columns, minePercentage, topology, seed, true, CellStore.map(file));
+    }
+
+    /**
+     * Opens a minesweeper board that was kept in the given file, exactly as it was left.
+     *
+     * @param file the file the board is kept in
+     * @throws IOException if the file could not be opened or does not hold a minesweeper board
+     */
+    public static Minesweeper open(Path file) throws IOException {
+        CellStore cells = CellStore.map(file);
+        long size = cells.getHeader(SIZE_SLOT);
+        long topology = cells.getHeader(SETTINGS_SLOT) >>> 8;
+
+        if(cells.getHeader(MAGIC_SLOT) != MAGIC || !isValidSize((int) (size >>> 32), (int) size) || topology >= BoardTopology.values().length) {
+            cells.close();
+            throw new IOException(file + " does not hold a minesweeper board");
+        }
+        return new Minesweeper(cells);
+    }
+
+    /**
+     * Returns true if a board of size rows by columns has between 1 and Integer.MAX_VALUE cells, which is every size a board can have.
+     */
+    private static boolean isValidSize(int rows, int columns) {
+        return rows > 0 && columns > 0 && (long) rows * columns <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Makes sure a board of size rows by columns can be made.
+     *
+     * @throws IllegalArgumentException if the board would not have between 1 and Integer.MAX_VALUE cells
+     */
+    private static void checkSize(int rows, int columns) {
+        if(!isValidSize(rows, columns)) {
+            throw new IllegalArgumentException("a " + rows + " by " + columns + " board must have between 1 and " + Integer.MAX_VALUE + " cells");
+        }
+    }
+
+    /**
+     * Writes every change to a board kept in a file to that file.
+     * Does nothing for a board kept on the heap.
+     *
+     * @throws IOException if the changes could not be written
+     */
+    public void flush() throws IOException {
+        cells.flush();
+    }
+
+    /**
+     * Writes every change to a board kept in a file to that file and closes the file.
+     * The board should not be played afterwards. Does nothing for a board kept on the heap.
+     *
+     * @throws IOException if the changes could not be written
+     */
+    public void close() throws IOException {
+        cells.close();
     }
 
     /**
      * Adds a set amount of randomly placed mines around the board.
      * It begins by calculating the number of mines required for the board.
-     * Then it adds randomly located mines to the board if the randomly found spot is empty.
+     * Then it adds randomly located mines to the board if the randomly found spot is not already a mine.
+     * The random locations are drawn from the board's seed.
      */
     private void addRandomMines() {
-        Random random = new Random();
-        int randomColumn;
-        int randomRow;
+        int randomIndex;
 
         // percentage of mines should be around 9x9 = 81 = 8%, 16*16 = 256 = 6.4%, 16*30 = 480 = 4.8%
         //                                      10mines        40mines              99mines
         int size = rows * columns;
 
         mines = (int) (size * (minePercentage / 100.0));
+        random.setSeed(seed);
 
         for(int counter = 0; counter < mines; counter++) {
             do {
-                randomRow = random.nextInt(rows);
-                randomColumn = random.nextInt(columns);
-            } while(!board[randomRow][randomColumn].isEmpty());
+                randomIndex = random.nextInt(size);
+            } while(isMine(randomIndex));
 
-            board[randomRow][randomColumn].setValue(MINE_VALUE);
+            setValue(randomIndex, MINE_VALUE);
         }
     }
 
@@ -74,22 +263,65 @@ public class Minesweeper {
      * Then it attempts to increment all of the cells around it.
      */
     private void addNumbersAroundMines() {
-        for(int row = 0; row < rows; row++) {
-            for(int column = 0; column < columns; column++) {
-                if(board[row][column].isMine()) {
-                    incrementValueAt(row - 1, column - 1);
-                    incrementValueAt(row - 1, column);
-                    incrementValueAt(row - 1, column + 1);
-                    incrementValueAt(row, column - 1);
-                    incrementValueAt(row, column + 1);
-                    incrementValueAt(row + 1, column - 1);
-                    incrementValueAt(row + 1, column);
-                    incrementValueAt(row + 1, column + 1);
+        int size = rows * columns;
+
+        for(int index = 0; index < size; index++) {
+            if(isMine(index)) {
+                int list[] = neighbourTable != null ? neighbours : fillNeighbours;
+                int from = neighbourTable != null ? neighbourStart[index] : 0;
+                int to = neighbourTable != null ? neighbourStart[index + 1] : neighboursAt(index, fillNeighbours);
+
+                for(int position = from; position < to; position++) {
+                    incrementValueAt(list[position]);
                 }
             }
         }
     }
 
+    /**
+     * Adds a listener that is told about every change made to the board.
+     * Listeners are called on the thread that changes the board.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(Listener listener) {
+        Listener newListeners[] = Arrays.copyOf(listeners, listeners.length + 1);
+
+        newListeners[listeners.length] = listener;
+        listeners = newListeners;
+    }
+
+    /**
+     * Removes a listener that was added to the board.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(Listener listener) {
+        for(int counter = 0; counter < listeners.length; counter++) {
+            if(listeners[counter] == listener) {
+                Listener newListeners[] = new Listener[listeners.length - 1];
+
+                System.arraycopy(listeners, 0, newListeners, 0, counter);
+                System.arraycopy(listeners, counter + 1, newListeners, counter, listeners.length - counter - 1);
+                listeners = newListeners;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Tells every listener that the given cell changed.
+     *
+     * @param index the flat index (row * columns + column) of the given cell
+     */
+    private void fireCellChanged(int index) {
+        if(listeners.length > 0) {
+            for(Listener listener : listeners) {
+                listener.cellChanged(index / columns, index % columns);
+            }
+        }
+    }
+
     /**
      * Attempts to flag the given cell on the board.
      * It first checks that the given cell is within the board's bounds.
@@ -100,42 +332,88 @@ public class Minesweeper {
      * @param column the column of the given cell
      */
     public void flagAt(int row, int column) {
-        if(isInboundsAt(row, column) && !board[row][column].isVisible()) {
-            if(board[row][column].isFlag()) {
-                board[row][column].setFlag(false);
+        if(isInboundsAt(row, column) && !isVisible(row * columns + column)) {
+            int index = row * columns + column;
+
+            if(isFlag(index)) {
+                setBit(index, FLAG_BIT, false);
             }
             else {
-                board[row][column].setFlag(true);
+                setBit(index, FLAG_BIT, true);
             }
+            frontierHash ^= zobristKey(index, FLAG_STATE);
+            saveState();
+            fireCellChanged(index);
         }
     }
 
     /**
      * Attempts to floodfill the area around a given cell.
-     * It first checks that the given cell is within the board's bounds.
-     * Then it checks if the given cell is not visible and not flagged.
-     * It then sets the current cell to be visible now.
-     * Then if the current cell is empty, it proceeds to floodfill around that cell.
+     * It first makes the given cell visible if it is not visible and not flagged.
+     * Then it keeps a queue of empty cells whose neighbours still have to be checked, starting with the given cell.
+     * For each neighbour of those cells it checks if that neighbour is not visible and not flagged.
+     * It then sets that neighbour to be visible straight away, and queues it if it is empty too.
+     * Since cells are made visible as they are queued, no cell is ever queued twice.
+     * And since the queue is worked through in order, it only ever holds the edge of the area uncovered so far,
+     * so it stays small even when the area is most of an enormous board.
      *
-     * @param row    the row of the given cell
-     * @param column the column of the given cell
+     * @param index the flat index (row * columns + column) of the given cell
      */
-    private void floodFillAt(int row, int column) {
-        if(isInboundsAt(row, column) && !board[row][column].isVisible() && !board[row][column].isFlag()) {
-            board[row][column].setVisible(true);
-            visibleCells++;
-
-            if(board[row][column].isEmpty()) {
-                floodFillAt(row - 1, column - 1);
-                floodFillAt(row - 1, column);
-                floodFillAt(row - 1, column + 1);
-                floodFillAt(row, column - 1);
-                floodFillAt(row, column + 1);
-                floodFillAt(row + 1, column - 1);
-                floodFillAt(row + 1, column);
-                floodFillAt(row + 1, column + 1);
+    private void floodFillAt(int index) {
+        int queue[] = floodFillQueue;
+        int head = 0;
+        int size = 0;
+
+        if(isVisible(index) || isFlag(index)) {
+            return;
+        }
+        revealAt(index);
+
+        queue[0] = index;
+        size++;
+        while(size > 0) {
+            int current = queue[head];
+            int list[] = neighbourTable != null ? neighbours : fillNeighbours;
+            int from = neighbourTable != null ? neighbourStart[current] : 0;
+            int to = neighbourTable != null ? neighbourStart[current + 1] : neighboursAt(current, fillNeighbours);
+
+            head = (head + 1) & (queue.length - 1);
+            size--;
+            for(int position = from; position < to; position++) {
+                int neighbour = list[position];
+
+                if(!isVisible(neighbour) && !isFlag(neighbour)) {
+                    revealAt(neighbour);
+
+                    if(getValueAt(neighbour) == EMPTY_VALUE) {
+                        if(size == queue.length) {
+                            // unwrap the full ring into an array twice the size, which keeps the length a power of two
+                            int newQueue[] = new int[queue.length * 2];
+
+                            System.arraycopy(queue, head, newQueue, 0, queue.length - head);
+                            System.arraycopy(queue, 0, newQueue, queue.length - head, head);
+                            queue = newQueue;
+                            head = 0;
+                        }
+                        queue[(head + size) & (queue.length - 1)] = neighbour;
+                        size++;
+                    }
+                }
             }
         }
+        floodFillQueue = queue;
+    }
+
+    /**
+     * Makes the given cell visible and tells the frontier hash and every listener about it.
+     *
+     * @param index the flat index (row * columns + column) of the given cell
+     */
+    private void revealAt(int index) {
+        setBit(index, VISIBLE_BIT, true);
+        visibleCells++;
+        updateFrontierHashAt(index);
+        fireCellChanged(index);
     }
 
     /**
@@ -152,6 +430,30 @@ public class Minesweeper {
         return rows;
     }
 
+    /**
+     * Returns the zobrist hash of the visible frontier of the board.
+     * The frontier is made up of every visible cell that still touches a cell that is not visible, along with every flagged cell.
+     * The hash is kept up to date as cells are played and flagged, so two boards of the same shape
+     * with the same frontier have the same hash no matter how they got there or what lies behind the frontier.
+     */
+    public long getFrontierHash() {
+        return frontierHash;
+    }
+
+    /**
+     * Returns the seed the mines on the board were placed with.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the topology of the board.
+     */
+    public BoardTopology getTopology() {
+        return topology;
+    }
+
     /**
      * Gets the mine percentage.
      * @return the mine percentage
@@ -168,6 +470,209 @@ public class Minesweeper {
         return mines;
     }
 
+    /**
+     * Returns the neighbour table of the board.
+     * Boards with more cells than getMaxTableCells keep no table, and are refused rather than building one,
+     * since a table takes around 32 bytes a cell and would not fit in the heap for the largest boards kept in files.
+     *
+     * @throws IllegalStateException if the board is too large to keep a neighbour table
+     */
+    NeighbourTable getNeighbourTable() {
+        if(neighbourTable == null) {
+            throw new IllegalStateException("a " + rows + " by " + columns + " board is too large to keep a neighbour table, which is limited to "
+                    + getMaxTableCells() + " cells");
+        }
+        return neighbourTable;
+    }
+
+    /**
+     * Returns the largest number of cells the board keeps a neighbour table for,
+     * which is far lower for a board kept in a file, so its cells staying off the heap is not undone by its table.
+     */
+    private int getMaxTableCells() {
+        return cells.isPersistent() ? MAX_MAPPED_TABLE_CELLS : MAX_TABLE_CELLS;
+    }
+
+    /**
+     * Works out the cells around the given cell and writes them to the given array.
+     * This is only needed on boards too large to keep a neighbour table.
+     * Every loop over the cells around a cell reads neighbours[neighbourStart[index]] up to neighbours[neighbourStart[index + 1]]
+     * when the board keeps a table, and the first cells of its own array filled in by this otherwise.
+     * Each loop has its own array, since some of them run inside others.
+     *
+     * @param index      the flat index (row * columns + column) of the given cell
+     * @param neighbours the array the neighbours are written to, which holds at least BoardTopology.MAX_NEIGHBOURS cells
+     * @return           the number of neighbours written
+     */
+    private int neighboursAt(int index, int neighbours[]) {
+        return topology.neighboursAt(rows, columns, index / columns, index % columns, neighbours);
+    }
+
+    /**
+     * Returns what the player can see of the cell on the board.
+     * That is the cell's value if it is visible, FLAG_STATE if it is flagged, or HIDDEN_STATE otherwise.
+     *
+     * @param row    the row of the given cell
+     * @param column the column of the given cell
+     */
+    public int getStateAt(int row, int column) {
+        int index = row * columns + column;
+
+        if(isVisible(index)) {
+            return getValueAt(index);
+        }
+        return isFlag(index) ? FLAG_STATE : HIDDEN_STATE;
+    }
+
+    /**
+     * Copies what the player can see of a rectangular region of the board into the given array, one byte per cell, row by row.
+     * Each byte is what getStateAt returns for that cell, so mines stay hidden until the player uncovers them.
+     * This is the one to use for anything that should only know what the player knows, such as renderers, solvers, and bots.
+     *
+     * @param row    the top row of the region
+     * @param column the left column of the region
+     * @param height the number of rows in the region
+     * @param width  the number of columns in the region
+     * @param states the array the states are written to
+     * @param offset the index in the array the state of the top left cell of the region is written to
+     * @throws IndexOutOfBoundsException if the region is not on the board or does not fit in the array
+     */
+    public void getStatesIn(int row, int column, int height, int width, byte states[], int offset) {
+        checkRegion(row, column, height, width, offset, states.length);
+
+        for(int rowOffset = 0; rowOffset < height; rowOffset++) {
+            int index = (row + rowOffset) * columns + column;
+            int start = offset + rowOffset * width;
+
+            cells.get(index, states, start, width);
+            for(int counter = start; counter < start + width; counter++) {
+                byte cell = states[counter];
+
+                if((cell & VISIBLE_BIT) != 0) {
+                    int value = valueOf(cell);
+
+                    states[counter] = (byte) (value == UNKNOWN_VALUE ? getValueAt(index + counter - start) : value);
+                }
+                else {
+                    states[counter] = (byte) ((cell & FLAG_BIT) != 0 ? FLAG_STATE : HIDDEN_STATE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the value of every cell in a rectangular region of the board into the given array, one byte per cell, row by row.
+     * Each byte is what getValueAt returns for that cell, whether or not the player has uncovered it, so this gives away where the mines are.
+     *
+     * @param row    the top row of the region
+     * @param column the left column of the region
+     * @param height the number of rows in the region
+     * @param width  the number of columns in the region
+     * @param values the array the values are written to
+     * @param offset the index in the array the value of the top left cell of the region is written to
+     * @throws IndexOutOfBoundsException if the region is not on the board or does not fit in the array
+     */
+    public void getValuesIn(int row, int column, int height, int width, byte values[], int offset) {
+        checkRegion(row, column, height, width, offset, values.length);
+
+        for(int rowOffset = 0; rowOffset < height; rowOffset++) {
+            int index = (row + rowOffset) * columns + column;
+            int start = offset + rowOffset * width;
+
+            cells.get(index, values, start, width);
+            for(int counter = start; counter < start + width; counter++) {
+                int value = valueOf(values[counter]);
+
+                values[counter] = (byte) (value == UNKNOWN_VALUE ? getValueAt(index + counter - start) : value);
+            }
+        }
+    }
+
+    /**
+     * Sets a bit for every visible cell in a rectangular region of the board, and clears it for every other cell.
+     * The cells of the region are numbered row by row from 0, and cell n is bit n % 64 of bits[n / 64].
+     *
+     * @param row    the top row of the region
+     * @param column the left column of the region
+     * @param height the number of rows in the region
+     * @param width  the number of columns in the region
+     * @param bits   the bitset the cells are written to
+     * @throws IndexOutOfBoundsException if the region is not on the board or does not fit in the bitset
+     */
+    public void getVisibleIn(int row, int column, int height, int width, long bits[]) {
+        getBitsIn(row, column, height, width, bits, VISIBLE_BIT, VISIBLE_BIT);
+    }
+
+    /**
+     * Sets a bit for every flagged cell in a rectangular region of the board, and clears it for every other cell.
+     * The cells of the region are numbered row by row from 0, and cell n is bit n % 64 of bits[n / 64].
+     *
+     * @param row    the top row of the region
+     * @param column the left column of the region
+     * @param height the number of rows in the region
+     * @param width  the number of columns in the region
+     * @param bits   the bitset the cells are written to
+     * @throws IndexOutOfBoundsException if the region is not on the board or does not fit in the bitset
+     */
+    public void getFlagsIn(int row, int column, int height, int width, long bits[]) {
+        getBitsIn(row, column, height, width, bits, FLAG_BIT, FLAG_BIT);
+    }
+
+    /**
+     * Sets a bit for every mine in a rectangular region of the board, and clears it for every other cell.
+     * The cells of the region are numbered row by row from 0, and cell n is bit n % 64 of bits[n / 64].
+     * This gives away where the mines are, so it is meant for showing the board once the game has ended.
+     *
+     * @param row    the top row of the region
+     * @param column the left column of the region
+     * @param height the number of rows in the region
+     * @param width  the number of columns in the region
+     * @param bits   the bitset the cells are written to
+     * @throws IndexOutOfBoundsException if the region is not on the board or does not fit in the bitset
+     */
+    public void getMinesIn(int row, int column, int height, int width, long bits[]) {
+        getBitsIn(row, column, height, width, bits, VALUE_BITS, MINE_VALUE + 2);
+    }
+
+    /**
+     * Sets a bit for every cell in a rectangular region of the board whose packed byte, masked with the given mask, equals the given pattern,
+     * and clears it for every other cell.
+     */
+    private void getBitsIn(int row, int column, int height, int width, long bits[], int mask, int pattern) {
+        checkRegion(row, column, height, width, 0, (long) bits.length * Long.SIZE);
+
+        if(regionRow == null || regionRow.length < width) {
+            regionRow = new byte[width];
+        }
+        Arrays.fill(bits, 0, (int) (((long) height * width + Long.SIZE - 1) / Long.SIZE), 0);
+
+        for(int rowOffset = 0; rowOffset < height; rowOffset++) {
+            int bit = rowOffset * width;
+
+            cells.get((row + rowOffset) * columns + column, regionRow, 0, width);
+            for(int counter = 0; counter < width; counter++, bit++) {
+                if((regionRow[counter] & mask) == pattern) {
+                    bits[bit >>> 6] |= 1L << bit;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that a rectangular region is on the board and that its cells fit in an array of the given length from the given offset.
+     *
+     * @throws IndexOutOfBoundsException if the region is not on the board or does not fit
+     */
+    private void checkRegion(int row, int column, int height, int width, int offset, long length) {
+        if(row < 0 || column < 0 || height < 0 || width < 0 || row + height > rows || column + width > columns) {
+            throw new IndexOutOfBoundsException("the " + height + " by " + width + " region at row " + row + ", column " + column
+                    + " is not on the " + rows + " by " + columns + " board");
+        }
+        if(offset < 0 || (long) height * width > length - offset) {
+            throw new IndexOutOfBoundsException("the " + height + " by " + width + " region does not fit in " + length + " cells from " + offset);
+        }
+    }
+
     /**
      * Returns the value of the cell on the board.
      *
@@ -175,24 +680,107 @@ public class Minesweeper {
      * @param column the column of the given cell
      */
     public int getValueAt(int row, int column) {
-        return board[row][column].getValue();
+        return getValueAt(row * columns + column);
+    }
+
+    /**
+     * Returns the value of the cell at the given flat index (row * columns + column) on the board.
+     * If the board is lazy and the cell has not been numbered yet, it first counts the mines around the cell and remembers the count.
+     */
+    int getValueAt(int index) {
+        int value = valueOf(cells.get(index));
+
+        if(value == UNKNOWN_VALUE) {
+            int list[] = neighbourTable != null ? neighbours : valueNeighbours;
+            int from = neighbourTable != null ? neighbourStart[index] : 0;
+            int to = neighbourTable != null ? neighbourStart[index + 1] : neighboursAt(index, valueNeighbours);
+
+            value = EMPTY_VALUE;
+            for(int position = from; position < to; position++) {
+                if(isMine(list[position])) {
+                    value++;
+                }
+            }
+            setValue(index, value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns true if the given cell touches a cell that is not visible, false otherwise.
+     *
+     * @param index the flat index (row * columns + column) of the given cell
+     */
+    private boolean hasHiddenNeighbourAt(int index) {
+        int list[] = neighbourTable != null ? neighbours : hiddenNeighbours;
+        int from = neighbourTable != null ? neighbourStart[index] : 0;
+        int to = neighbourTable != null ? neighbourStart[index + 1] : neighboursAt(index, hiddenNeighbours);
+
+        for(int position = from; position < to; position++) {
+            if(!isVisible(list[position])) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
      * Increments the value of the given cell.
-     * It first checks that the given cell is within the board's bounds.
-     * Then it checks that the given cell is not a mine.
+     * It checks that the given cell is not a mine.
      * And then it increases the value of that cell.
      *
-     * @param row    the row of the given cell
-     * @param column the column of the given cell
+     * @param index the flat index (row * columns + column) of the given cell
      */
-    private void incrementValueAt(int row, int column) {
-        if(isInboundsAt(row, column) && !board[row][column].isMine()) {
-            board[row][column].setValue(board[row][column].getValue() + 1);
+    private void incrementValueAt(int index) {
+        if(!isMine(index)) {
+            setValue(index, valueOf(cells.get(index)) + 1);
         }
     }
 
+    /**
+     * Returns the value packed into the given cell.
+     */
+    private static int valueOf(byte cell) {
+        return (cell & VALUE_BITS) - 2;
+    }
+
+    /**
+     * Returns true if the cell at the given flat index is a mine, false otherwise.
+     */
+    private boolean isMine(int index) {
+        return valueOf(cells.get(index)) == MINE_VALUE;
+    }
+
+    /**
+     * Returns true if the cell at the given flat index is visible, false otherwise.
+     */
+    private boolean isVisible(int index) {
+        return (cells.get(index) & VISIBLE_BIT) != 0;
+    }
+
+    /**
+     * Returns true if the cell at the given flat index is flagged, false otherwise.
+     */
+    private boolean isFlag(int index) {
+        return (cells.get(index) & FLAG_BIT) != 0;
+    }
+
+    /**
+     * Sets the value of the cell at the given flat index, keeping whether it is visible and flagged.
+     */
+    private void setValue(int index, int value) {
+        cells.set(index, (byte) (cells.get(index) & ~VALUE_BITS | value + 2));
+    }
+
+    /**
+     * Sets or clears the given bit of the cell at the given flat index.
+     */
+    private void setBit(int index, int bit, boolean isSet) {
+        byte cell = cells.get(index);
+
+        cells.set(index, (byte) (isSet ? cell | bit : cell & ~bit));
+    }
+
     /**
      * Returns true if the given cell is empty, false otherwise.
      *
@@ -200,7 +788,7 @@ public class Minesweeper {
      * @param column the column of the given cell
      */
     public boolean isEmptyAt(int row, int column) {
-        return board[row][column].isEmpty();
+        return getValueAt(row * columns + column) == EMPTY_VALUE;
     }
 
     /**
@@ -212,7 +800,7 @@ public class Minesweeper {
      * @param column the column of the given cell
      */
     public boolean isFlagAt(int row, int column) {
-        return board[row][column].isFlag();
+        return isFlag(row * columns + column);
     }
 
     /**
@@ -237,7 +825,14 @@ public class Minesweeper {
      * @param column the column of the given cell
      */
     public boolean isMineAt(int row, int column) {
-        return board[row][column].isMine();
+        return isMine(row * columns + column);
+    }
+
+    /**
+     * Returns true if the board works out the number of each cell only when it is needed, false otherwise.
+     */
+    public boolean isLazy() {
+        return isLazy;
     }
 
     /**
@@ -257,7 +852,7 @@ public class Minesweeper {
      * @param column the column of the given cell
      */
     public boolean isVisibleAt(int row, int column) {
-        return board[row][column].isVisible();
+        return isVisible(row * columns + column);
     }
 
     /**
@@ -272,23 +867,30 @@ public class Minesweeper {
      * Attempts to make a move on the board using the given cell.
      * It first checks that the given cell is within the board's bounds.
      * Then if the cell is empty, it attempts to floodfill around it.
-     * Otherwise, it justs sets the single cell to be visible.
+     * Otherwise, it justs sets the single cell to be visible if it is not already.
      *
      * @param row    the row of the given cell
      * @param column the column of the given cell
      */
     public void playAt(int row, int column) {
-        if(isInboundsAt(row, column) && !board[row][column].isFlag()) {
-            if(board[row][column].isEmpty()) {
-                floodFillAt(row, column);
+        if(isInboundsAt(row, column) && !isFlag(row * columns + column)) {
+            int index = row * columns + column;
+
+            if(getValueAt(index) == EMPTY_VALUE) {
+                MinesweeperMetrics.FloodFillEvent event = MinesweeperMetrics.beginFloodFill();
+                int previousVisibleCells = visibleCells;
+
+                floodFillAt(index);
+
+                MinesweeperMetrics.endFloodFill(event, visibleCells - previousVisibleCells);
             }
-            else if(board[row][column].isMine()) {
+            else if(isMine(index)) {
                 isOver = true;
             }
-            else {
-                board[row][column].setVisible(true);
-                visibleCells++;
+            else if(!isVisible(index)) {
+                revealAt(index);
             }
+            saveState();
         }
     }
 
@@ -296,174 +898,212 @@ public class Minesweeper {
      * Randomizes the board.
      * It begins by making all of the cells on the board empty, not visible, and not flagged.
      * Then it adds random mines to the board.
-     * And finally it adds numbers around the randomly placed mines on the board.
+     * And finally, unless the board is lazy, it adds numbers around the randomly placed mines on the board.
      * <p>
      * NOTE: This can cause an infinite loop if the board size is less than 12.
      *       This is because the user can add in a basic for loop to ensure that the first move a player takes will always uncover an empty square.
      */
     public void randomizeBoard() {
+        randomizeBoard(seedGenerator.nextLong());
+    }
+
+    /**
+     * Randomizes the board using the given seed.
+     * The same seed always creates the same board as the constructor given that seed.
+     *
+     * @param seed the seed the mines are placed with
+     */
+    public void randomizeBoard(long seed) {
+        MinesweeperMetrics.BoardGenerationEvent event = MinesweeperMetrics.beginBoardGeneration();
+
         isOver = false;
         visibleCells = 0;
+        frontierHash = 0;
+        this.seed = seed;
 
-        for(int row = 0; row < rows; row++) {
-            for(int column = 0; column < columns; column++) {
-                board[row][column].setFlag(false);
-                board[row][column].setVisible(false);
-                board[row][column].setValue(EMPTY_VALUE);
-            }
+        clearBoard();
+        addRandomMines();
+        if(!isLazy) {
+            addNumbersAroundMines();
         }
+        saveState();
 
-        addRandomMines();
-        addNumbersAroundMines();
+        for(Listener listener : listeners) {
+            listener.boardChanged();
+        }
+
+        MinesweeperMetrics.endBoardGeneration(event, rows, columns, mines);
+    }
+
+    /**
+     * Changes the size and mine percentage of the board and randomizes it.
+     * The existing cells are reused whenever the board already holds enough of them,
+     * and the neighbour table is only rebuilt if the number of rows or columns changed.
+     *
+     * @param rows           the new number of rows on the board
+     * @param columns        the new number of columns on the board
+     * @param minePercentage the new mine percentage
+     * @throws IllegalArgumentException if the board would not have between 1 and Integer.MAX_VALUE cells
+     */
+    public void resize(int rows, int columns, int minePercentage) {
+        checkSize(rows, columns);
+        if(rows != this.rows || columns != this.columns) {
+            this.rows = rows;
+            this.columns = columns;
+            initializeBoard(rows, columns);
+        }
+        this.minePercentage = minePercentage;
+
+        randomizeBoard();
+    }
+
+    /**
+     * Makes every cell on the board empty, not visible, and not flagged.
+     * On a lazy board the cells are marked as not numbered yet instead of empty.
+     */
+    private void clearBoard() {
+        cells.fill(0, rows * columns, (byte) ((isLazy ? UNKNOWN_VALUE : EMPTY_VALUE) + 2));
+    }
+
+    /**
+     * Saves the state of the board in the header of its store, so a board kept in a file can be opened again exactly as it was left.
+     * Does nothing for a board kept on the heap.
+     */
+    private void saveState() {
+        if(cells.isPersistent()) {
+            cells.setHeader(SIZE_SLOT, (long) rows << 32 | columns & 0xFFFFFFFFL);
+            cells.setHeader(MINES_SLOT, (long) minePercentage << 32 | mines & 0xFFFFFFFFL);
+            cells.setHeader(SEED_SLOT, seed);
+            cells.setHeader(VISIBLE_CELLS_SLOT, visibleCells);
+            cells.setHeader(FRONTIER_HASH_SLOT, frontierHash);
+            cells.setHeader(SETTINGS_SLOT, (long) topology.ordinal() << 8 | (isLazy ? 2 : 0) | (isOver ? 1 : 0));
+            cells.setHeader(MAGIC_SLOT, MAGIC);
+        }
     }
 
     /**
      * Sets the size of the board.
-     * It first sets the board to be this new size and initializes each cell on it.
-     * And finally it adds numbers around the randomly placed mines on the board.
+     * It first makes sure the board holds at least this new size of cells, keeping any cells it already has.
+     * And finally, unless the board is too large, it precomputes the neighbours of every cell for the board's topology.
      *
      * @param rows    the number of rows on the board
      * @param columns the number of columns on the board
      */
     private void initializeBoard(int rows, int columns) {
-        board = new Cell[rows][columns];
+        int size = rows * columns;
 
-        for(int row = 0; row < rows; row++) {
-            for(int column = 0; column < columns; column++) {
-                board[row][column] = new Cell();
-            }
+        cells.ensureCapacity(size);
+
+        if(size <= getMaxTableCells()) {
+            neighbourTable = new NeighbourTable(topology, rows, columns);
+            neighbourStart = neighbourTable.start;
+            neighbours = neighbourTable.neighbours;
+        }
+        else {
+            neighbourTable = null;
+            neighbourStart = null;
+            neighbours = null;
+        }
+        if(floodFillQueue == null) {
+            floodFillQueue = new int[1024];
         }
+        zobristSalt = ((long) rows << 40) ^ ((long) columns << 16) ^ topology.ordinal();
     }
 
     /**
-     * Returns a nicely formatted string of the board.
+     * Updates the frontier hash after the given cell has been made visible.
+     * The given cell joins the frontier if it still touches a cell that is not visible.
+     * And any visible cell around it that no longer touches a cell that is not visible leaves the frontier.
+     *
+     * @param index the flat index (row * columns + column) of the given cell
      */
-    @Override
-    public String toString() {
-        StringBuilder boardDisplay = new StringBuilder(rows * columns + columns + 1);
-        int value;
+    private void updateFrontierHashAt(int index) {
+        int list[] = neighbourTable != null ? neighbours : frontierNeighbours;
+        int from = neighbourTable != null ? neighbourStart[index] : 0;
+        int to = neighbourTable != null ? neighbourStart[index + 1] : neighboursAt(index, frontierNeighbours);
 
-        for(int row = 0; row < rows; row++) {
-            for(int column = 0; column < columns; column++) {
-                if(board[row][column].isVisible()) {
-                    value = board[row][column].getValue();
+        if(hasHiddenNeighbourAt(index)) {
+            frontierHash ^= zobristKey(index, getValueAt(index));
+        }
 
-                    if(value == EMPTY_VALUE) {
-                        boardDisplay.append(' ');
-                    }
-                    else if(value == MINE_VALUE) {
-                        boardDisplay.append('*');
-                    }
-                    else {
-                        boardDisplay.append(value);
-                    }
-                }
-                else if(board[row][column].isFlag()) {
-                    boardDisplay.append('!');
-                }
-                else {
-                    boardDisplay.append('#');
-                }
+        for(int position = from; position < to; position++) {
+            int neighbour = list[position];
+
+            if(isVisible(neighbour) && !hasHiddenNeighbourAt(neighbour)) {
+                frontierHash ^= zobristKey(neighbour, getValueAt(neighbour));
             }
-            boardDisplay.append('\n');
         }
-        return boardDisplay.toString();
     }
 
     /**
-     * A private inner class used to represent the structure of a cell in a minesweeper game.
-     * For example:
-     * <pre>
-     *     Cell cell = new Cell();
-     * </pre>
+     * Returns the zobrist key of the given cell being in the given state.
+     * Rather than storing a table of random keys, each key is made by mixing the cell, the state, and the shape of the board
+     * with the splitmix64 finalizer, which spreads every input bit over the whole key.
      *
-     * @author Luke Sieben
-     * @version 2012/09/19
+     * @param index the flat index (row * columns + column) of the given cell
+     * @param state the state of the given cell
      */
+    private long zobristKey(int index, int state) {
+        long key = (index * 16L + state) * 0x9E3779B97F4A7C15L + zobristSalt;
 
-    private class Cell {
-        private boolean isFlag;
-        private boolean isVisible;
-        private int value;
-
-        /**
-         * Creates an empty cell.
-         */
-        public Cell() {
-            this(EMPTY_VALUE, false, false);
-        }
-
-        /**
-         * Creates a cell with the given values.
-         */
-        public Cell(int value, boolean isVisible, boolean isFlag) {
-            setFlag(isFlag);
-            setVisible(isVisible);
-            setValue(value);
-        }
-
-        /**
-         * Returns the value of the cell.
-         */
-        public int getValue() {
-            return value;
-        }
+        key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+        key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+        return key ^ (key >>> 31);
+    }
 
-        /**
-         * Returns true if the cell is empty, false otherwise.
-         */
-        public boolean isEmpty() {
-            return value == EMPTY_VALUE;
+    /**
+     * Returns the character used to show a cell in the given state.
+     * Hidden cells are shown as '#', flagged cells as '!', empty cells as ' ', mines as '*', and numbered cells as their number.
+     *
+     * @param state the state of the cell, as returned by getStateAt
+     */
+    public static char getGlyph(int state) {
+        if(state == HIDDEN_STATE) {
+            return '#';
         }
-
-        /**
-         * Returns true if the cell is flagged, false otherwise.
-         */
-        public boolean isFlag() {
-            return isFlag;
+        else if(state == FLAG_STATE) {
+            return '!';
         }
-
-        /**
-         * Returns true if the cell is a mine, false otherwise.
-         */
-        public boolean isMine() {
-            return value == MINE_VALUE;
+        else if(state == EMPTY_VALUE) {
+            return ' ';
         }
-
-        /**
-         * Returns true if the cell is visible, false otherwise.
-         */
-        public boolean isVisible() {
-            return isVisible;
+        else if(state == MINE_VALUE) {
+            return '*';
         }
+        return (char) ('0' + state);
+    }
 
-        /**
-         * Sets the isFlag variable of a cell.
-         */
-        public void setFlag(boolean isFlag) {
-            this.isFlag = isFlag;
-        }
+    /**
+     * Returns a nicely formatted string of the board.
+     */
+    @Override
+    public String toString() {
+        StringBuilder boardDisplay = new StringBuilder(rows * columns + columns + 1);
 
-        /*
-         * Sets the value of a cell.
-         */
-        public void setValue(int value) {
-            this.value = value;
+        for(int row = 0; row < rows; row++) {
+            for(int column = 0; column < columns; column++) {
+                boardDisplay.append(getGlyph(getStateAt(row, column)));
+            }
+            boardDisplay.append('\n');
         }
+        return boardDisplay.toString();
+    }
 
+    /**
+     * A listener that is told about every change made to a board.
+     */
+    public interface Listener {
         /**
-         * Sets the isVisible variable of a cell.
+         * Called after the given cell was made visible, flagged, or unflagged.
+         *
+         * @param row    the row of the given cell
+         * @param column the column of the given cell
          */
-        public void setVisible(boolean isVisible) {
-            this.isVisible = isVisible;
-        }
+        void cellChanged(int row, int column);
 
         /**
-         * Returns a nicely formatted string of the cell.
+         * Called after the whole board was randomized, so every cell may have changed.
          */
-        @Override
-        public String toString() {
-            return getClass().getName() + "[value=" + value + ", isVisible=" + isVisible + ", isFlag=" + isFlag + "]";
-        }
+        void boardChanged();
     }
 }
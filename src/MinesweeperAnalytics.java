@@ -0,0 +1,414 @@
+/**
+ * A class used to measure how difficult minesweeper boards are.
+ * Every board is measured in a single union-find pass over its cells which finds:
+ * <ul>
+ *     <li>openings, the groups of touching empty cells that a single click clears,</li>
+ *     <li>islands, the groups of touching numbered cells that do not border any opening,</li>
+ *     <li>the 3BV, which is the number of openings plus the number of numbered cells that do not border any opening,</li>
+ *     <li>and the minimum number of clicks needed to clear the board without flagging, which is equal to the 3BV.</li>
+ * </ul>
+ * Boards can be measured one at a time or in bulk over a range of seeds in parallel, where the results are collected into histograms.
+ * For example:
+ * <pre>
+ *     MinesweeperAnalytics.Histogram histogram = MinesweeperAnalytics.analyzeSeeds(16, 16, 15, BoardTopology.RECTANGLE, 0, 1000000);
+ *     System.out.println(histogram);
+ * </pre>
+ * Or from the command line, to print the histograms of every mine percentage for a 16 by 16 board:
+ * <pre>
+ *     java MinesweeperAnalytics 16 16 100000
+ * </pre>
+ *
+ * @version 2026/10/18
+ */
+
+import java.util.stream.LongStream;
+
+public final class MinesweeperAnalytics {
+    private Minesweeper game;
+    private int openings;
+    private int islands;
+    private int threeBV;
+    private int parent[];
+    private boolean bordersOpening[];
+
+    /**
+     * The measurements taken of every board.
+     */
+    public enum Metric {
+        THREE_BV, OPENINGS, ISLANDS, MINIMUM_CLICKS
+    }
+
+    /**
+     * Creates an analyzer that reuses a single board of size rows by columns for every seed it measures.
+     */
+    private MinesweeperAnalytics(int rows, int columns, int minePercentage, BoardTopology topology) {
+        game = new Minesweeper(rows, columns, minePercentage, topology, 0, false);
+        parent = new int[rows * columns];
+        bordersOpening = new boolean[rows * columns];
+    }
+
+    /**
+     * Creates an analyzer for a single given board.
+     */
+    private MinesweeperAnalytics(Minesweeper game) {
+        this.game = game;
+        parent = new int[game.getRows() * game.getColumns()];
+        bordersOpening = new boolean[game.getRows() * game.getColumns()];
+    }
+
+    /**
+     * Measures the difficulty of the given board.
+     *
+     * @param game the board that is measured
+     * @return     the difficulty of the board
+     * @throws IllegalStateException if the board is too large to keep a neighbour table
+     */
+    public static Difficulty analyze(Minesweeper game) {
+        MinesweeperAnalytics analytics = new MinesweeperAnalytics(game);
+
+        analytics.analyze();
+        return new Difficulty(analytics.threeBV, analytics.openings, analytics.islands);
+    }
+
+    /**
+     * Measures the difficulty of every board in a range of seeds in parallel.
+     *
+     * @param rows           the number of rows on every board
+     * @param columns        the number of columns on every board
+     * @param minePercentage the mine percentage of every board
+     * @param topology       the topology of every board
+     * @param firstSeed      the seed of the first board
+     * @param boards         the number of boards, which use the seeds firstSeed up to firstSeed + boards
+     * @return               the histograms of every metric
+     */
+    public static Histogram analyzeSeeds(int rows, int columns, int minePercentage, BoardTopology topology, long firstSeed, long boards) {
+        return LongStream.range(firstSeed, firstSeed + boards).parallel().collect(
+                () -> new Collector(rows, columns, minePercentage, topology),
+                Collector::add,
+                Collector::merge).histogram;
+    }
+
+    /**
+     * Finds the seeds in a range of seeds whose boards have a 3BV between the given bounds.
+     * The boards are measured in parallel, so the seeds are not returned in order.
+     *
+     * @param rows           the number of rows on every board
+     * @param columns        the number of columns on every board
+     * @param minePercentage the mine percentage of every board
+     * @param topology       the topology of every board
+     * @param firstSeed      the seed of the first board
+     * @param boards         the number of boards, which use the seeds firstSeed up to firstSeed + boards
+     * @param minThreeBV     the lowest 3BV that is kept
+     * @param maxThreeBV     the highest 3BV that is kept
+     * @return               the seeds of the boards that are kept
+     */
+    public static LongStream filterSeeds(int rows, int columns, int minePercentage, BoardTopology topology,
+                                         long firstSeed, long boards, int minThreeBV, int maxThreeBV) {
+        ThreadLocal<MinesweeperAnalytics> analyzers =
+                ThreadLocal.withInitial(() -> new MinesweeperAnalytics(rows, columns, minePercentage, topology));
+
+        return LongStream.range(firstSeed, firstSeed + boards).parallel().filter(seed -> {
+            MinesweeperAnalytics analytics = analyzers.get();
+
+            analytics.analyze(seed);
+            return analytics.threeBV >= minThreeBV && analytics.threeBV <= maxThreeBV;
+        });
+    }
+
+    /**
+     * Randomizes the reused board with the given seed and measures it.
+     */
+    private void analyze(long seed) {
+        game.randomizeBoard(seed);
+        analyze();
+    }
+
+    /**
+     * Measures the current board.
+     * It walks every cell once, joining each cell with the touching cells it shares a group with.
+     * Empty cells are joined with the empty cells around them, which makes up the openings.
+     * Numbered cells that have no empty cell around them are joined with the other such cells around them, which makes up the islands.
+     * Each cell starts out as its own group and every successful join removes a group, so the groups are counted as they are made.
+     */
+    private void analyze() {
+        NeighbourTable table = game.getNeighbourTable();
+        int start[] = table.start;
+        int neighbours[] = table.neighbours;
+        int size = parent.length;
+        int isolatedCells = 0;
+
+        openings = 0;
+        islands = 0;
+
+        for(int index = 0; index < size; index++) {
+            int value = game.getValueAt(index);
+
+            parent[index] = index;
+
+            if(value == Minesweeper.EMPTY_VALUE) {
+                openings++;
+                for(int position = start[index]; position < start[index + 1]; position++) {
+                    int neighbour = neighbours[position];
+
+                    if(neighbour < index && game.getValueAt(neighbour) == Minesweeper.EMPTY_VALUE && union(index, neighbour)) {
+                        openings--;
+                    }
+                }
+            }
+            else if(value != Minesweeper.MINE_VALUE) {
+                boolean isBorder = false;
+
+                for(int position = start[index]; position < start[index + 1] && !isBorder; position++) {
+                    isBorder = game.getValueAt(neighbours[position]) == Minesweeper.EMPTY_VALUE;
+                }
+                bordersOpening[index] = isBorder;
+
+                if(!isBorder) {
+                    isolatedCells++;
+                    islands++;
+                    for(int position = start[index]; position < start[index + 1]; position++) {
+                        int neighbour = neighbours[position];
+                        int neighbourValue = game.getValueAt(neighbour);
+
+                        if(neighbour < index && neighbourValue != Minesweeper.MINE_VALUE && !bordersOpening[neighbour]
+                                && union(index, neighbour)) {
+                            islands--;
+                        }
+                    }
+                }
+            }
+        }
+
+        threeBV = openings + isolatedCells;
+    }
+
+    /**
+     * Returns the representative of the group the given cell is in, halving the path to it along the way.
+     */
+    private int find(int index) {
+        while(parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    /**
+     * Joins the groups of the two given cells.
+     *
+     * @return true if the cells were in different groups, false otherwise
+     */
+    private boolean union(int first, int second) {
+        int firstRoot = find(first);
+        int secondRoot = find(second);
+
+        if(firstRoot == secondRoot) {
+            return false;
+        }
+        // the later cell always joins the earlier group, which keeps the trees shallow when walking the board in order
+        if(firstRoot < secondRoot) {
+            parent[secondRoot] = firstRoot;
+        }
+        else {
+            parent[firstRoot] = secondRoot;
+        }
+        return true;
+    }
+
+    /**
+     * Prints the histograms of every mine percentage for a board size.
+     * The arguments are the number of rows, the number of columns, and optionally the number of boards for each mine percentage.
+     */
+    public static void main(String[] args) {
+        int rows = Integer.parseInt(args[0]);
+        int columns = Integer.parseInt(args[1]);
+        long boards = args.length > 2 ? Long.parseLong(args[2]) : 100000;
+
+        for(int minePercentage = Minesweeper.MIN_MINE_PERCENTAGE; minePercentage <= Minesweeper.MAX_MINE_PERCENTAGE; minePercentage++) {
+            long startTime = System.nanoTime();
+            Histogram histogram = analyzeSeeds(rows, columns, minePercentage, BoardTopology.RECTANGLE, 0, boards);
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+
+            System.out.printf("Rows: %d  Columns: %d  Mine Percentage: %d  (%.0f boards/minute)%n",
+                    rows, columns, minePercentage, boards / seconds * 60);
+            System.out.println(histogram);
+        }
+    }
+
+    /**
+     * A private class used to collect the measurements of one thread during a bulk analysis.
+     */
+    private static class Collector {
+        private final MinesweeperAnalytics analytics;
+        private final Histogram histogram;
+
+        Collector(int rows, int columns, int minePercentage, BoardTopology topology) {
+            analytics = new MinesweeperAnalytics(rows, columns, minePercentage, topology);
+            histogram = new Histogram(rows * columns);
+        }
+
+        void add(long seed) {
+            analytics.analyze(seed);
+            histogram.add(analytics.threeBV, analytics.openings, analytics.islands, analytics.threeBV);
+        }
+
+        void merge(Collector other) {
+            histogram.merge(other.histogram);
+        }
+    }
+
+    /**
+     * The difficulty of a single board.
+     */
+    public static final class Difficulty {
+        private final int threeBV;
+        private final int openings;
+        private final int islands;
+
+        Difficulty(int threeBV, int openings, int islands) {
+            this.threeBV = threeBV;
+            this.openings = openings;
+            this.islands = islands;
+        }
+
+        /**
+         * Returns the 3BV of the board.
+         */
+        public int getThreeBV() {
+            return threeBV;
+        }
+
+        /**
+         * Returns the number of openings on the board.
+         */
+        public int getOpenings() {
+            return openings;
+        }
+
+        /**
+         * Returns the number of islands on the board.
+         */
+        public int getIslands() {
+            return islands;
+        }
+
+        /**
+         * Returns the minimum number of clicks needed to clear the board without flagging.
+         */
+        public int getMinimumClicks() {
+            return threeBV;
+        }
+
+        /**
+         * Returns a nicely formatted string of the difficulty.
+         */
+        @Override
+        public String toString() {
+            return getClass().getName() + "[threeBV=" + threeBV + ", openings=" + openings + ", islands=" + islands + "]";
+        }
+    }
+
+    /**
+     * The histograms of every metric over many boards of the same size.
+     * Every metric of a board lies between 0 and the number of cells on the board, so each histogram is a plain array of counts.
+     */
+    public static final class Histogram {
+        private long boards;
+        private final long counts[][];
+
+        /**
+         * Creates empty histograms for boards with the given number of cells.
+         */
+        Histogram(int cells) {
+            counts = new long[Metric.values().length][cells + 1];
+        }
+
+        /**
+         * Adds the measurements of a single board.
+         */
+        void add(int threeBV, int openings, int islands, int minimumClicks) {
+            boards++;
+            counts[Metric.THREE_BV.ordinal()][threeBV]++;
+            counts[Metric.OPENINGS.ordinal()][openings]++;
+            counts[Metric.ISLANDS.ordinal()][islands]++;
+            counts[Metric.MINIMUM_CLICKS.ordinal()][minimumClicks]++;
+        }
+
+        /**
+         * Adds every measurement of the other histograms to these histograms.
+         */
+        void merge(Histogram other) {
+            boards += other.boards;
+            for(int metric = 0; metric < counts.length; metric++) {
+                for(int value = 0; value < counts[metric].length; value++) {
+                    counts[metric][value] += other.counts[metric][value];
+                }
+            }
+        }
+
+        /**
+         * Returns the number of boards measured.
+         */
+        public long getBoards() {
+            return boards;
+        }
+
+        /**
+         * Returns the number of boards whose given metric had the given value.
+         */
+        public long getCount(Metric metric, int value) {
+            long metricCounts[] = counts[metric.ordinal()];
+
+            return value > -1 && value < metricCounts.length ? metricCounts[value] : 0;
+        }
+
+        /**
+         * Returns the mean of the given metric over every board measured.
+         */
+        public double getMean(Metric metric) {
+            long metricCounts[] = counts[metric.ordinal()];
+            double sum = 0;
+
+            for(int value = 0; value < metricCounts.length; value++) {
+                sum += (double) value * metricCounts[value];
+            }
+            return boards == 0 ? 0 : sum / boards;
+        }
+
+        /**
+         * Returns the smallest value of the given metric that at least the given percentile of boards are at or below.
+         *
+         * @param metric     the metric
+         * @param percentile the percentile between 0 and 100
+         */
+        public int getPercentile(Metric metric, double percentile) {
+            long metricCounts[] = counts[metric.ordinal()];
+            long target = (long) Math.ceil(boards * percentile / 100.0);
+            long seen = 0;
+
+            for(int value = 0; value < metricCounts.length; value++) {
+                seen += metricCounts[value];
+                if(seen >= target && seen > 0) {
+                    return value;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Returns a nicely formatted summary of every histogram.
+         */
+        @Override
+        public String toString() {
+            StringBuilder summary = new StringBuilder();
+
+            summary.append(String.format("%-15s %8s %6s %6s %6s %6s %6s%n", "Metric", "Mean", "Min", "P10", "P50", "P90", "Max"));
+            for(Metric metric : Metric.values()) {
+                summary.append(String.format("%-15s %8.2f %6d %6d %6d %6d %6d%n", metric, getMean(metric),
+                        getPercentile(metric, 0), getPercentile(metric, 10), getPercentile(metric, 50),
+                        getPercentile(metric, 90), getPercentile(metric, 100)));
+            }
+            return summary.toString();
+        }
+    }
+}
@@ -0,0 +1,304 @@
+/**
+ * A class used to train and evaluate automated players on many minesweeper boards at once.
+ * It steps a batch of boards in lockstep, taking one action per board, and reports what happened through flat primitive arrays:
+ * <ul>
+ *     <li>observations, the player-visible state of every cell of every board (see Minesweeper.getStateAt), board after board,</li>
+ *     <li>rewards, the reward each board earned on the last step,</li>
+ *     <li>and dones, whether each board's game ended on the last step.</li>
+ * </ul>
+ * A board whose game ends is straight away reset to a new board from the next seed in its sequence,
+ * so its observation already shows the new board when done is true.
+ * Observations are kept up to date by listening to each board, so a step only writes the cells that changed.
+ * Stepping does not allocate, and the boards are split between a fixed set of worker threads.
+ * For example:
+ * <pre>
+ *     MinesweeperEnvironment environment = new MinesweeperEnvironment(1024, 16, 16, 15, 0, 4);
+ *     byte observations[] = environment.getObservations();
+ *     int actions[] = new int[1024];
+ *     ...
+ *     environment.step(actions);
+ *     float rewards[] = environment.getRewards();
+ * </pre>
+ * An action from 0 up to rows * columns plays the cell at that flat index (row * columns + column),
+ * and an action from rows * columns up to 2 * rows * columns flags or unflags the cell at the action minus rows * columns.
+ *
+ * @version 2026/10/18
+ */
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public final class MinesweeperEnvironment {
+    public static final float LOSS_REWARD = -1, WIN_REWARD = 1, INVALID_ACTION_REWARD = -0.01f;
+    private volatile boolean isClosed;
+    private volatile int generation;
+    private final int boards;
+    private final int size;
+    private int actions[];
+    private final int revealedCells[];
+    private final long seeds[];
+    private final boolean dones[];
+    private final float rewards[];
+    private final byte observations[];
+    private final Minesweeper games[];
+    private Thread stepThread;
+    private final Thread workers[];
+    private final AtomicInteger remainingWorkers = new AtomicInteger();
+
+    /**
+     * Creates a batch of boards of size rows by columns and resets them.
+     *
+     * @param boards         the number of boards stepped together
+     * @param rows           the number of rows on every board
+     * @param columns        the number of columns on every board
+     * @param minePercentage the mine percentage of every board
+     * @param seed           the seed of the first board, where board k plays the seeds seed + k, seed + k + boards, and so on
+     * @param threads        the number of threads that step the boards, including the thread that calls step
+     */
+    public MinesweeperEnvironment(int boards, int rows, int columns, int minePercentage, long seed, int threads) {
+        this.boards = boards;
+        size = rows * columns;
+        revealedCells = new int[boards];
+        seeds = new long[boards];
+        dones = new boolean[boards];
+        rewards = new float[boards];
+        observations = new byte[boards * size];
+        games = new Minesweeper[boards];
+
+        for(int board = 0; board < boards; board++) {
+            seeds[board] = seed + board;
+            games[board] = new Minesweeper(rows, columns, minePercentage, BoardTopology.RECTANGLE, seeds[board]);
+            games[board].addListener(new ObservationListener(board));
+            resetObservation(board);
+        }
+
+        workers = new Thread[Math.max(0, Math.min(threads, boards) - 1)];
+        for(int worker = 0; worker < workers.length; worker++) {
+            final int stripe = worker + 1;
+
+            workers[worker] = new Thread(new Runnable() {
+                public void run() {
+                    work(stripe);
+                }
+            }, "Minesweeper environment " + stripe);
+            workers[worker].setDaemon(true);
+            workers[worker].start();
+        }
+    }
+
+    /**
+     * Applies one action to every board.
+     * This has to be called from a single thread at a time.
+     *
+     * @param actions the action for each board
+     */
+    public void step(int actions[]) {
+        if(actions.length != boards) {
+            throw new IllegalArgumentException("expected " + boards + " actions but got " + actions.length);
+        }
+        if(isClosed) {
+            throw new IllegalStateException("the environment is closed");
+        }
+
+        this.actions = actions;
+        stepThread = Thread.currentThread();
+        remainingWorkers.set(workers.length);
+        generation++;
+        for(Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+
+        stepStripe(0);
+
+        while(remainingWorkers.get() > 0) {
+            LockSupport.park(this);
+        }
+    }
+
+    /**
+     * Resets every board to the next seed in its sequence.
+     */
+    public void reset() {
+        for(int board = 0; board < boards; board++) {
+            seeds[board] += boards;
+            resetBoard(board);
+            rewards[board] = 0;
+            dones[board] = false;
+        }
+    }
+
+    /**
+     * Stops the worker threads. The environment cannot be stepped afterwards.
+     */
+    public void close() {
+        isClosed = true;
+        for(Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * Returns the number of boards.
+     */
+    public int getBoards() {
+        return boards;
+    }
+
+    /**
+     * Returns the number of cells on each board.
+     */
+    public int getCells() {
+        return size;
+    }
+
+    /**
+     * Returns the observations of every board, which are updated in place by every step.
+     */
+    public byte[] getObservations() {
+        return observations;
+    }
+
+    /**
+     * Returns the rewards of the last step, which are updated in place by every step.
+     */
+    public float[] getRewards() {
+        return rewards;
+    }
+
+    /**
+     * Returns whether each board's game ended on the last step, which are updated in place by every step.
+     */
+    public boolean[] getDones() {
+        return dones;
+    }
+
+    /**
+     * Returns the seed of the board currently being played on the given board.
+     */
+    public long getSeed(int board) {
+        return seeds[board];
+    }
+
+    /**
+     * The loop each worker thread runs, stepping its stripe of boards every time the generation changes.
+     */
+    private void work(int stripe) {
+        // starting from the initial generation rather than reading it, since the first step may come before this thread starts
+        int seenGeneration = 0;
+
+        while(!isClosed) {
+            if(generation == seenGeneration) {
+                LockSupport.park(this);
+            }
+            else {
+                seenGeneration = generation;
+                stepStripe(stripe);
+                if(remainingWorkers.decrementAndGet() == 0) {
+                    LockSupport.unpark(stepThread);
+                }
+            }
+        }
+    }
+
+    /**
+     * Steps every board in the given stripe, which are the boards stripe, stripe + threads, stripe + 2 * threads, and so on.
+     */
+    private void stepStripe(int stripe) {
+        int threads = workers.length + 1;
+
+        for(int board = stripe; board < boards; board += threads) {
+            stepBoard(board, actions[board]);
+        }
+    }
+
+    /**
+     * Applies a single action to a single board.
+     * The reward is the share of the board's safe cells the action uncovered, plus WIN_REWARD for winning,
+     * or LOSS_REWARD for hitting a mine, or INVALID_ACTION_REWARD for an action that changed nothing.
+     */
+    private void stepBoard(int board, int action) {
+        Minesweeper game = games[board];
+        int columns = game.getColumns();
+        boolean isFlag = action >= size;
+        int index = isFlag ? action - size : action;
+
+        revealedCells[board] = 0;
+        rewards[board] = 0;
+        dones[board] = false;
+
+        if(index < 0 || index >= size || game.isVisibleAt(index / columns, index % columns)
+                || (!isFlag && game.isFlagAt(index / columns, index % columns))) {
+            rewards[board] = INVALID_ACTION_REWARD;
+            return;
+        }
+
+        if(isFlag) {
+            game.flagAt(index / columns, index % columns);
+        }
+        else {
+            game.playAt(index / columns, index % columns);
+            rewards[board] = (float) revealedCells[board] / (size - game.getMines());
+        }
+
+        if(game.isOver()) {
+            rewards[board] = LOSS_REWARD;
+            dones[board] = true;
+        }
+        else if(game.isWon()) {
+            rewards[board] += WIN_REWARD;
+            dones[board] = true;
+        }
+
+        if(dones[board]) {
+            seeds[board] += boards;
+            resetBoard(board);
+        }
+    }
+
+    /**
+     * Randomizes the given board with its current seed.
+     */
+    private void resetBoard(int board) {
+        games[board].randomizeBoard(seeds[board]);
+    }
+
+    /**
+     * Marks every cell of the given board's observation as hidden.
+     */
+    private void resetObservation(int board) {
+        for(int index = board * size; index < (board + 1) * size; index++) {
+            observations[index] = Minesweeper.HIDDEN_STATE;
+        }
+    }
+
+    /**
+     * A private class used to copy every change made to a board into its observation.
+     */
+    private class ObservationListener implements Minesweeper.Listener {
+        private final int board;
+
+        ObservationListener(int board) {
+            this.board = board;
+        }
+
+        /**
+         * Copies the changed cell into the observation and counts it if it was uncovered.
+         */
+        public void cellChanged(int row, int column) {
+            Minesweeper game = games[board];
+            int state = game.getStateAt(row, column);
+
+            observations[board * size + row * game.getColumns() + column] = (byte) state;
+            if(game.isVisibleAt(row, column)) {
+                revealedCells[board]++;
+            }
+        }
+
+        /**
+         * Marks the whole observation as hidden, since a randomized board starts with every cell hidden.
+         */
+        public void boardChanged() {
+            resetObservation(board);
+        }
+    }
+}
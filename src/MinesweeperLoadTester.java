@@ -0,0 +1,361 @@
+/**
+ * A basic main that measures how responsive a MinesweeperPanel stays as its board grows.
+ * It drives the panel with a scripted stream of events, the way a player would:
+ * mouse enter and exit sweeps over the grid, left and right clicks on cells, and key presses for space and 1 to 6.
+ * Each event is handed to the event-dispatch thread, sent to the listeners of the label or panel it is aimed at,
+ * and then the whole panel is painted into an offscreen image.
+ * The time from handing the event over to the end of that paint is recorded for each operation type and board size.
+ * Since it paints offscreen, it runs just as well without a display, for example on a build machine.
+ * For example, to run 200 rounds of the script on 9 by 9, 16 by 16, and 30 by 24 boards with 15 percent mines:
+ * <pre>
+ *     java MinesweeperLoadTester 9x9,16x16,30x24 200 15
+ * </pre>
+ * Running it with -Dminesweeper.metrics=true as well also prints where the panel spent its time, from MinesweeperMetrics.
+ *
+ * @version 2026/10/18
+ */
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.image.BufferedImage;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.Random;
+import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
+
+public class MinesweeperLoadTester {
+    private int hoverColumn;
+    private int hoverRow;
+    private boolean isRecording;
+    private BufferedImage image;
+    private final MinesweeperPanel panel;
+    private final Random random = new Random(1);
+    private final Recorder recorders[] = new Recorder[Operation.values().length];
+
+    /**
+     * The kinds of events the script sends, which are timed separately.
+     */
+    public enum Operation {
+        HOVER("Hover"), LEFT_CLICK("Left click"), RIGHT_CLICK("Right click"), RANDOMIZE("Randomize [Space]"), RESIZE("Resize [1-6]");
+
+        private final String name;
+
+        Operation(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the name of the operation.
+         */
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Creates a load tester for a new panel of size rows by columns.
+     * This has to be called on the event-dispatch thread.
+     */
+    public MinesweeperLoadTester(int rows, int columns, int minePercentage) {
+        // scripted games are not real games, so they are kept out of the player's statistics
+        panel = new MinesweeperPanel(rows, columns, minePercentage, null);
+        for(int counter = 0; counter < recorders.length; counter++) {
+            recorders[counter] = new Recorder();
+        }
+    }
+
+    /**
+     * The main method, which runs the script on each board size and prints the latency percentiles of each operation.
+     * The arguments are optionally the board sizes as a comma separated list of rows x columns, the number of rounds, and the mine percentage.
+     */
+    public static void main(String[] args) throws InterruptedException, InvocationTargetException {
+        // nothing is shown on screen, so there is no need for a display unless one is asked for
+        System.setProperty("java.awt.headless", System.getProperty("java.awt.headless", "true"));
+
+        String sizes[] = (args.length > 0 ? args[0] : "9x9,16x16,30x24").split(",");
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int minePercentage = args.length > 2 ? Integer.parseInt(args[2]) : 15;
+
+        for(String size : sizes) {
+            int rows = Integer.parseInt(size.substring(0, size.indexOf('x')).trim());
+            int columns = Integer.parseInt(size.substring(size.indexOf('x') + 1).trim());
+            MinesweeperLoadTester tester[] = new MinesweeperLoadTester[1];
+
+            SwingUtilities.invokeAndWait(new Runnable() {
+                public void run() {
+                    tester[0] = new MinesweeperLoadTester(rows, columns, minePercentage);
+                }
+            });
+
+            MinesweeperMetrics.reset();
+            tester[0].run(rounds);
+            tester[0].report(System.out, rows, columns, minePercentage);
+            if(MinesweeperMetrics.IS_ENABLED) {
+                System.out.println(MinesweeperMetrics.report());
+            }
+        }
+    }
+
+    /**
+     * Runs the script for the given number of rounds.
+     * The first fifth of the rounds are a warm up and are not recorded, so class loading and compilation do not skew the results.
+     */
+    public void run(int rounds) throws InterruptedException, InvocationTargetException {
+        int warmUpRounds = rounds / 5;
+
+        for(int round = 0; round < warmUpRounds + rounds; round++) {
+            isRecording = round >= warmUpRounds;
+            runRound(round);
+        }
+    }
+
+    /**
+     * Runs a single round of the script:
+     * a hover sweep along a random row, a few right clicks, and a left click, followed by a space press if the game has ended.
+     * Every tenth round it also presses a pair of the keys 1 to 6, which changes the board and then changes it back.
+     */
+    private void runRound(int round) throws InterruptedException, InvocationTargetException {
+        Minesweeper game = panel.getGame();
+        int rows = game.getRows();
+        int columns = game.getColumns();
+        int row = random.nextInt(rows);
+
+        for(int column = 0; column < columns; column++) {
+            hoverAt(row, column);
+        }
+
+        for(int counter = 0; counter < 3; counter++) {
+            int cell = findHiddenCell(rows, columns);
+
+            if(cell != -1) {
+                clickAt(cell / columns, cell % columns, MouseEvent.BUTTON3, Operation.RIGHT_CLICK);
+            }
+        }
+
+        int cell = findHiddenCell(rows, columns);
+        if(cell != -1 && !game.isFlagAt(cell / columns, cell % columns)) {
+            clickAt(cell / columns, cell % columns, MouseEvent.BUTTON1, Operation.LEFT_CLICK);
+        }
+
+        if(game.isOver() || game.isWon() || cell == -1) {
+            pressKey(KeyEvent.VK_SPACE, Operation.RANDOMIZE);
+        }
+
+        if(round % 10 == 9) {
+            int pair = round / 10 % 3;
+            int decreaseKey = KeyEvent.VK_1 + pair * 2;
+            boolean isAtMaximum = pair == 0 ? rows >= Minesweeper.MAX_ROW_AMOUNT : pair == 1 ? columns >= Minesweeper.MAX_COLUMN_AMOUNT
+                    : game.getMinePercentage() >= Minesweeper.MAX_MINE_PERCENTAGE;
+
+            // shrink then grow at the largest size, and grow then shrink otherwise, so the board always ends up where it started
+            pressKey(isAtMaximum ? decreaseKey : decreaseKey + 1, Operation.RESIZE);
+            pressKey(isAtMaximum ? decreaseKey + 1 : decreaseKey, Operation.RESIZE);
+        }
+    }
+
+    /**
+     * Returns the flat index of a random cell that is not visible, or -1 if there is none.
+     */
+    private int findHiddenCell(int rows, int columns) {
+        Minesweeper game = panel.getGame();
+        int start = random.nextInt(rows * columns);
+
+        for(int offset = 0; offset < rows * columns; offset++) {
+            int cell = (start + offset) % (rows * columns);
+
+            if(!game.isVisibleAt(cell / columns, cell % columns)) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the mouse off the last hovered cell and onto the given cell, timing each as a hover.
+     */
+    private void hoverAt(int row, int column) throws InterruptedException, InvocationTargetException {
+        int previousRow = hoverRow;
+        int previousColumn = hoverColumn;
+
+        measure(Operation.HOVER, new Runnable() {
+            public void run() {
+                if(panel.getGame().isInboundsAt(previousRow, previousColumn)) {
+                    JLabel label = panel.getLabelAt(previousRow, previousColumn);
+                    MouseEvent event = createMouseEvent(label, MouseEvent.MOUSE_EXITED, MouseEvent.NOBUTTON);
+
+                    for(MouseListener listener : label.getMouseListeners()) {
+                        listener.mouseExited(event);
+                    }
+                }
+            }
+        });
+        measure(Operation.HOVER, new Runnable() {
+            public void run() {
+                JLabel label = panel.getLabelAt(row, column);
+                MouseEvent event = createMouseEvent(label, MouseEvent.MOUSE_ENTERED, MouseEvent.NOBUTTON);
+
+                for(MouseListener listener : label.getMouseListeners()) {
+                    listener.mouseEntered(event);
+                }
+            }
+        });
+        hoverRow = row;
+        hoverColumn = column;
+    }
+
+    /**
+     * Presses and releases the given mouse button on the given cell.
+     */
+    private void clickAt(int row, int column, int button, Operation operation) throws InterruptedException, InvocationTargetException {
+        measure(operation, new Runnable() {
+            public void run() {
+                JLabel label = panel.getLabelAt(row, column);
+                MouseEvent pressed = createMouseEvent(label, MouseEvent.MOUSE_PRESSED, button);
+                MouseEvent released = createMouseEvent(label, MouseEvent.MOUSE_RELEASED, button);
+
+                // the listeners are read again before the release, as a press can remove them, just as the panel does on a real click
+                for(MouseListener listener : label.getMouseListeners()) {
+                    listener.mousePressed(pressed);
+                }
+                for(MouseListener listener : label.getMouseListeners()) {
+                    listener.mouseReleased(released);
+                }
+            }
+        });
+    }
+
+    /**
+     * Presses the given key on the panel.
+     */
+    private void pressKey(int keyCode, Operation operation) throws InterruptedException, InvocationTargetException {
+        measure(operation, new Runnable() {
+            public void run() {
+                KeyEvent event = new KeyEvent(panel, KeyEvent.KEY_PRESSED, System.currentTimeMillis(), 0, keyCode, KeyEvent.CHAR_UNDEFINED);
+
+                for(KeyListener listener : panel.getKeyListeners()) {
+                    listener.keyPressed(event);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns a mouse event of the given type for the middle of the given label.
+     */
+    private static MouseEvent createMouseEvent(JLabel label, int id, int button) {
+        int modifiers = button == MouseEvent.BUTTON1 ? InputEvent.BUTTON1_DOWN_MASK : button == MouseEvent.BUTTON3 ? InputEvent.BUTTON3_DOWN_MASK : 0;
+
+        return new MouseEvent(label, id, System.currentTimeMillis(), modifiers, label.getWidth() / 2, label.getHeight() / 2,
+                1, button == MouseEvent.BUTTON3, button);
+    }
+
+    /**
+     * Hands the given event to the event-dispatch thread, waits until the panel has been painted afterwards,
+     * and records how long that took for the given operation.
+     */
+    private void measure(Operation operation, Runnable event) throws InterruptedException, InvocationTargetException {
+        long startTime = System.nanoTime();
+
+        SwingUtilities.invokeAndWait(new Runnable() {
+            public void run() {
+                event.run();
+                paint();
+            }
+        });
+
+        if(isRecording) {
+            recorders[operation.ordinal()].add(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Lays out the panel at its preferred size and paints all of it into the offscreen image,
+     * which stands in for the repaint the panel asks for after every event.
+     */
+    private void paint() {
+        Dimension size = panel.getPreferredSize();
+
+        if(!size.equals(panel.getSize()) || image == null) {
+            panel.setSize(size);
+            image = new BufferedImage(Math.max(1, size.width), Math.max(1, size.height), BufferedImage.TYPE_INT_RGB);
+        }
+        panel.validate();
+
+        Graphics2D graphics = image.createGraphics();
+        panel.paint(graphics);
+        graphics.dispose();
+    }
+
+    /**
+     * Prints the latency percentiles of every operation, in microseconds.
+     */
+    public void report(PrintStream out, int rows, int columns, int minePercentage) {
+        out.printf("Board: %d x %d  Mine percentage: %d%n", rows, columns, minePercentage);
+        out.printf("  %-18s %8s %10s %10s %10s %10s%n", "Operation", "Events", "p50 (us)", "p90 (us)", "p99 (us)", "max (us)");
+        for(Operation operation : Operation.values()) {
+            Recorder recorder = recorders[operation.ordinal()];
+
+            if(recorder.getCount() > 0) {
+                out.printf("  %-18s %8d %10.1f %10.1f %10.1f %10.1f%n", operation, recorder.getCount(),
+                        recorder.getPercentile(50) / 1e3, recorder.getPercentile(90) / 1e3,
+                        recorder.getPercentile(99) / 1e3, recorder.getPercentile(100) / 1e3);
+            }
+        }
+    }
+
+    /**
+     * Returns the latency percentile of the given operation in nanoseconds, or 0 if it was never recorded.
+     *
+     * @param operation  the operation
+     * @param percentile the percentile, from 0 to 100
+     */
+    public long getPercentile(Operation operation, double percentile) {
+        Recorder recorder = recorders[operation.ordinal()];
+
+        return recorder.getCount() == 0 ? 0 : recorder.getPercentile(percentile);
+    }
+
+    /**
+     * A private class used to keep every latency recorded for a single operation.
+     */
+    private static class Recorder {
+        private int count;
+        private long samples[] = new long[256];
+
+        /**
+         * Records a single latency in nanoseconds.
+         */
+        void add(long nanos) {
+            if(count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = nanos;
+        }
+
+        /**
+         * Returns the number of latencies recorded.
+         */
+        int getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the given percentile of the recorded latencies, using the nearest rank.
+         */
+        long getPercentile(double percentile) {
+            long sorted[] = Arrays.copyOf(samples, count);
+            int rank = (int) Math.ceil(percentile / 100 * count);
+
+            Arrays.sort(sorted);
+            return sorted[Math.max(0, Math.min(count - 1, rank - 1))];
+        }
+    }
+}
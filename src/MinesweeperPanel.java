@@ -16,22 +16,48 @@ import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.IOException;
 import javax.swing.*;
 
 public class MinesweeperPanel extends JPanel {
+    private static final String NUMBER_COLORS[] = {"#FF0000", "#87CEEB", "#8FBC8F", "#D8BFD8", "#4169E1", "#3CB371", "#FF6347", "#0000FF", "#008000"};
     private boolean isFirstTurn;
+    private boolean isHintShown;
+    private int clicks;
+    private long gameStartTime;
+    private byte states[] = new byte[0];
+    private long mineBits[] = new long[0];
+    private long visibleBits[] = new long[0];
+    private Color hintColor;
+    private HintService hintService;
     private MouseAdapter boardListener;
     private JLabel board[][];
+    private JLabel hintLabel;
+    private JPanel boardPanel;
+    private JTextArea statusArea;
     private Minesweeper game;
+    private MinesweeperStatistics statistics;
 
     /**
      * Creates a minesweeper board of size rows by columns.
-     * NOTE #1: Spacebar is used to randomize the game board.
+     * NOTE #1: Spacebar is used to randomize the game board, and H is used to show or hide hints.
      * NOTE #2: An infinite loop will be caused if row * columns is less than 12.
      *          This is because of this panel's special feature which ensures that the first move a player takes will always uncover an empty square.
+     * Finished games are recorded in the player's statistics, kept in MinesweeperStatistics.getDefaultDirectory().
      */
     public MinesweeperPanel(int rows, int columns, int minePercentage) {
+        this(rows, columns, minePercentage, openDefaultStatistics());
+    }
+
+    /**
+     * Creates a minesweeper board of size rows by columns that records finished games in the given statistics.
+     *
+     * @param statistics the statistics finished games are recorded in, or null to not record them
+     */
+    public MinesweeperPanel(int rows, int columns, int minePercentage, MinesweeperStatistics statistics) {
+        this.statistics = statistics;
         boardListener = new BoardListener();
+        hintService = new HintService();
 
         setLayout(new BorderLayout());
 
@@ -60,6 +86,9 @@ public class MinesweeperPanel extends JPanel {
                 else if(keyCode == KeyEvent.VK_6 || keyCode == KeyEvent.VK_NUMPAD6) {
                     increaseMinePercentage();
                 }
+                else if(keyCode == KeyEvent.VK_H) {
+                    toggleHints();
+                }
 
                 repaint();
             }
@@ -69,6 +98,19 @@ public class MinesweeperPanel extends JPanel {
         initializeBoard(rows, columns, minePercentage);
     }
 
+    /**
+     * Opens the player's statistics, or returns null if they cannot be opened, as the game can still be played without them.
+     * They cannot be opened while another window or program has them open, so only the first window records its games.
+     */
+    private static MinesweeperStatistics openDefaultStatistics() {
+        try {
+            return MinesweeperStatistics.open(MinesweeperStatistics.getDefaultDirectory());
+        }
+        catch(IOException e) {
+            return null;
+        }
+    }
+
     /**
      * Decreases the amount of rows by 1.
      */
@@ -147,6 +189,25 @@ public class MinesweeperPanel extends JPanel {
         }
     }
 
+    /**
+     * Returns the game shown by the panel.
+     * This is used by MinesweeperLoadTester to choose which cells to script events on.
+     */
+    Minesweeper getGame() {
+        return game;
+    }
+
+    /**
+     * Returns the label that shows the given cell.
+     * This is used by MinesweeperLoadTester to send events straight to the label's listeners.
+     *
+     * @param row    the row of the given cell
+     * @param column the column of the given cell
+     */
+    JLabel getLabelAt(int row, int column) {
+        return board[row][column];
+    }
+
     /**
      * Disables a jlabel.
      * It first removes the jlabel's mouselistener.
@@ -169,6 +230,7 @@ public class MinesweeperPanel extends JPanel {
      */
     private void flagAt(int row, int column) {
         if(!isFirstTurn) {
+            clicks++;
             game.flagAt(row, column);
             if(game.isFlagAt(row, column)) {
                 board[row][column].setText("<html><font size=6 color=white>!</font></html>");
@@ -176,9 +238,76 @@ public class MinesweeperPanel extends JPanel {
             else {
                 board[row][column].setText("");
             }
+            requestHint();
         }
     }
 
+    /**
+     * Records the game that just ended in the player's statistics and shows the updated statistics.
+     * If the statistics cannot be written, the game stops recording rather than failing on every game.
+     */
+    private void recordGame() {
+        if(statistics != null) {
+            try {
+                statistics.record(game, (System.nanoTime() - gameStartTime) / 1000000, clicks);
+                statistics.flush();
+            }
+            catch(IOException e) {
+                statistics = null;
+            }
+        }
+        statusArea.setText(getStatusText());
+    }
+
+    /**
+     * Removes the highlight from the last hinted cell, unless the cell has been played since.
+     */
+    private void clearHint() {
+        if(hintLabel != null && hintLabel.getBackground().equals(hintColor)) {
+            hintLabel.setBackground(Color.gray);
+        }
+        hintLabel = null;
+    }
+
+    /**
+     * Starts working out a hint for the current position in the background if hints are shown,
+     * which cancels any hint still being worked out for an older position.
+     * No hint is given on the first turn, as the first move always uncovers an empty cell, or once the game has ended.
+     */
+    private void requestHint() {
+        clearHint();
+        if(isHintShown && !isFirstTurn && !game.isOver() && !game.isWon()) {
+            hintService.requestHint(game, this::showHint);
+        }
+        else {
+            hintService.cancel();
+        }
+    }
+
+    /**
+     * Highlights the hinted cell, in yellow if it is certainly safe or in orange if it is only the least risky cell.
+     * This is called on the event-dispatch thread once the hint has been worked out.
+     * A hint for a cell that is no longer hidden and unflagged on the board being played is not shown.
+     */
+    private void showHint(MinesweeperSolver.Hint hint) {
+        clearHint();
+        if(hint != null && game.isInboundsAt(hint.getRow(), hint.getColumn())
+                && !game.isVisibleAt(hint.getRow(), hint.getColumn()) && !game.isFlagAt(hint.getRow(), hint.getColumn())) {
+            hintColor = hint.isSafe() ? Color.yellow.darker() : Color.orange.darker();
+            hintLabel = board[hint.getRow()][hint.getColumn()];
+            hintLabel.setBackground(hintColor);
+            repaint();
+        }
+    }
+
+    /**
+     * Shows or hides hints.
+     */
+    private void toggleHints() {
+        isHintShown = !isHintShown;
+        requestHint();
+    }
+
     /**
      * Highlights or unhighlights a label.
      */
@@ -195,19 +324,28 @@ public class MinesweeperPanel extends JPanel {
      * Locks down the rest of the board after a lost game.
      */
     private void lockBoard() {
+        MinesweeperMetrics.EventDispatchEvent event = MinesweeperMetrics.beginEventDispatch();
         int columns = game.getColumns();
         int rows = game.getRows();
 
+        ensureBitCapacity(rows, columns);
+        game.getVisibleIn(0, 0, rows, columns, visibleBits);
+        game.getMinesIn(0, 0, rows, columns, mineBits);
+
         for(int row = 0; row < rows; row++) {
             for(int column = 0; column < columns; column++) {
-                if(!game.isVisibleAt(row, column)) {
-                    if(game.isMineAt(row, column)) {
+                int index = row * columns + column;
+
+                if(!isSet(visibleBits, index)) {
+                    if(isSet(mineBits, index)) {
                        board[row][column].setBackground(Color.red.darker());
                     }
                     disableJLabel(board[row][column]);
                 }
             }
         }
+
+        MinesweeperMetrics.endEventDispatch(event, MinesweeperMetrics.Kind.LOCK_BOARD);
     }
 
     /**
@@ -217,9 +355,12 @@ public class MinesweeperPanel extends JPanel {
         int columns = game.getColumns();
         int rows = game.getRows();
 
+        ensureBitCapacity(rows, columns);
+        game.getMinesIn(0, 0, rows, columns, mineBits);
+
         for(int row = 0; row < rows; row++) {
             for(int column = 0; column < columns; column++) {
-                if(game.isMineAt(row, column)) {
+                if(isSet(mineBits, row * columns + column)) {
                     board[row][column].setBackground(Color.green.darker());
                     disableJLabel(board[row][column]);
                 }
@@ -227,11 +368,27 @@ public class MinesweeperPanel extends JPanel {
         }
     }
 
+    /**
+     * Makes sure the bitsets the whole board is read into are large enough for a board of size rows by columns.
+     */
+    private void ensureBitCapacity(int rows, int columns) {
+        int words = (rows * columns + Long.SIZE - 1) / Long.SIZE;
+
+        if(mineBits.length < words) {
+            mineBits = new long[words];
+            visibleBits = new long[words];
+        }
+    }
+
+    /**
+     * Returns true if the given bit of the given bitset is set, false otherwise.
+     */
+    private static boolean isSet(long bits[], int bit) {
+        return (bits[bit >>> 6] & 1L << bit) != 0;
+    }
+
     /**
      * Randomizes the game board if the current game is not on its first turn.
-     * NOTE: It is necessary to remove the old mouse listener and add a new one,
-     *       as otherwise the mousepressed action will be called twice, making
-     *       flagging impossible.
      */
     private void randomizeBoard() {
         if(!isFirstTurn) {
@@ -243,110 +400,209 @@ public class MinesweeperPanel extends JPanel {
 
             for(int row = 0; row < rows; row++) {
                 for(int column = 0; column < columns; column++) {
-                    board[row][column].removeMouseListener(boardListener);
-                    board[row][column].addMouseListener(boardListener);
-                    board[row][column].setBackground(Color.gray);
-                    board[row][column].setBorder(BorderFactory.createLineBorder(Color.black));
-                    board[row][column].setEnabled(true);
-                    board[row][column].setText("");
+                    resetLabel(board[row][column]);
                 }
             }
+            requestHint();
         }
     }
 
     /**
      * Sets a new size for the board.
-     * It begins by automatically changing the rows and columns given if they are less than one to one.
-     * Then sets the board to be this new size and initializes each cell on it.
-     * And finally it adds numbers around the randomly placed mines on the board.
+     * The first time it is called it builds the board panel and the status panel.
+     * After that it resizes the existing game and reuses the existing labels, so only what changed is touched:
+     * when only the number of rows changes, whole rows of labels are added to or removed from the end of the grid,
+     * and labels are only created when the board grows bigger than it has ever been.
      *
      * @param rows    the number of rows on the board
      * @param columns the number of columns on the board
      */
     private void initializeBoard(int rows, int columns, int minePercentage) {
-        isFirstTurn = true;
-        game = new Minesweeper(rows, columns, minePercentage);
+        MinesweeperMetrics.EventDispatchEvent event = MinesweeperMetrics.beginEventDispatch();
+        int previousRows = 0;
+        int previousColumns = 0;
 
-        requestFocus();
-        removeAll();
+        if(game == null) {
+            game = new Minesweeper(rows, columns, minePercentage);
+            createPanels();
+        }
+        else {
+            previousRows = game.getRows();
+            previousColumns = game.getColumns();
+            game.resize(rows, columns, minePercentage);
+        }
 
-        // board panel
-        JPanel boardPanel = new JPanel(new GridLayout(0, columns));
+        requestFocus();
+        createLabels(rows, columns);
 
-        board = new JLabel[rows][columns];
+        if(columns == previousColumns) {
+            // the grid is filled row by row, so rows can be added or removed at the end without touching the others
+            for(int index = previousRows * columns - 1; index >= rows * columns; index--) {
+                boardPanel.remove(index);
+            }
+            for(int row = previousRows; row < rows; row++) {
+                for(int column = 0; column < columns; column++) {
+                    boardPanel.add(board[row][column]);
+                }
+            }
+        }
+        else {
+            boardPanel.removeAll();
+            ((GridLayout) boardPanel.getLayout()).setColumns(columns);
+            for(int row = 0; row < rows; row++) {
+                for(int column = 0; column < columns; column++) {
+                    boardPanel.add(board[row][column]);
+                }
+            }
+        }
 
+        // labels that were already on the board only need resetting if a move was made on them
         for(int row = 0; row < rows; row++) {
             for(int column = 0; column < columns; column++) {
-                board[row][column] = new JLabel("", JLabel.CENTER);
-                board[row][column].addMouseListener(boardListener);
-                board[row][column].putClientProperty("row", row);
-                board[row][column].putClientProperty("column", column);
-                board[row][column].setBackground(Color.gray);
-                board[row][column].setBorder(BorderFactory.createLineBorder(Color.black));
-                board[row][column].setOpaque(true);
-                boardPanel.add(board[row][column]);
+                if(!isFirstTurn || row >= previousRows || column >= previousColumns) {
+                    resetLabel(board[row][column]);
+                }
             }
         }
+        isFirstTurn = true;
+        requestHint();
+
+        statusArea.setText(getStatusText());
+
+        boardPanel.revalidate();
+        repaint();
+
+        MinesweeperMetrics.endEventDispatch(event, MinesweeperMetrics.Kind.INITIALIZE_BOARD);
+    }
+
+    /**
+     * Builds the board panel and the status panel.
+     */
+    private void createPanels() {
+        // board panel
+        boardPanel = new JPanel(new GridLayout(0, game.getColumns()));
+        board = new JLabel[0][0];
         add(boardPanel, BorderLayout.CENTER);
 
         // status panel
         JPanel statusPanel = new JPanel(new BorderLayout());
+        statusArea = new JTextArea();
+        statusArea.setEditable(false);
+        statusArea.setFocusable(false);
+        statusPanel.add(statusArea, BorderLayout.CENTER);
+        add(statusPanel, BorderLayout.SOUTH);
+    }
+
+    /**
+     * Makes sure there is a label for every cell on a board of size rows by columns, creating only the missing ones.
+     */
+    private void createLabels(int rows, int columns) {
+        if(board.length >= rows && board[0].length >= columns) {
+            return;
+        }
+
+        JLabel newBoard[][] = new JLabel[Math.max(rows, board.length)][Math.max(columns, board.length == 0 ? 0 : board[0].length)];
+
+        for(int row = 0; row < newBoard.length; row++) {
+            for(int column = 0; column < newBoard[row].length; column++) {
+                if(row < board.length && column < board[row].length) {
+                    newBoard[row][column] = board[row][column];
+                }
+                else {
+                    newBoard[row][column] = new JLabel("", JLabel.CENTER);
+                    newBoard[row][column].addMouseListener(boardListener);
+                    newBoard[row][column].putClientProperty("row", row);
+                    newBoard[row][column].putClientProperty("column", column);
+                    newBoard[row][column].setBackground(Color.gray);
+                    newBoard[row][column].setBorder(BorderFactory.createLineBorder(Color.black));
+                    newBoard[row][column].setOpaque(true);
+                }
+            }
+        }
+        board = newBoard;
+    }
+
+    /**
+     * Resets a label to how it looks at the start of a game.
+     * NOTE: It is necessary to remove the old mouse listener before adding it again,
+     *       as otherwise the mousepressed action will be called twice, making
+     *       flagging impossible.
+     *
+     * @param sourceLabel the jlabel that is going to be reset
+     */
+    private void resetLabel(JLabel sourceLabel) {
+        sourceLabel.removeMouseListener(boardListener);
+        sourceLabel.addMouseListener(boardListener);
+        sourceLabel.setBackground(Color.gray);
+        sourceLabel.setBorder(BorderFactory.createLineBorder(Color.black));
+        sourceLabel.setEnabled(true);
+        sourceLabel.setText("");
+    }
+
+    /**
+     * Returns the text shown in the status panel.
+     */
+    private String getStatusText() {
         String mouseControls = "Mouse Controls: Try a cell [Left click], Flag a cell [Right click]";
         String keyboardControls = "Keyboard Controls: Randomize board [Space], Decrease/increase rows [1,2], \n" +
-                "                                    Decrease/increase columns [3,4], Decrease/increase mine percentage [5,6]";
+                "                                    Decrease/increase columns [3,4], Decrease/increase mine percentage [5,6], \n" +
+                "                                    Show/hide hints [H]";
         String gameStats = String.format("Game Stats: Rows: %2d  Columns: %2d  Mine Percentage: %2d   Mine Count: %3d",
-                rows, columns, minePercentage, game.getMines());
-        JTextArea textArea = new JTextArea(mouseControls + "\n" +
+                game.getRows(), game.getColumns(), game.getMinePercentage(), game.getMines());
+        MinesweeperStatistics.Summary summary = statistics == null ? null :
+                statistics.getSummary(game.getRows(), game.getColumns(), game.getMinePercentage(), game.getTopology());
+        String playerStats = summary == null ? "Your Stats: No games finished on this board yet" :
+                String.format("Your Stats: Games: %d  Wins: %d (%.0f%%)  Best Time: %s", summary.getGames(), summary.getWins(),
+                        summary.getWinRate() * 100, summary.getWins() == 0 ? "-" : String.format("%.1fs", summary.getBestMillis() / 1e3));
+
+        return mouseControls + "\n" +
                 keyboardControls + "\n" +
-                gameStats);
-        textArea.setEditable(false);
-        textArea.setFocusable(false);
-        statusPanel.add(textArea, BorderLayout.CENTER);
-        add(statusPanel, BorderLayout.SOUTH);
-
-        revalidate();
-        repaint();
+                gameStats + "\n" +
+                playerStats;
     }
 
     /**
-     * Updates a single cell.
+     * Updates a single cell to show the given state, as returned by Minesweeper.getStateAt.
      * Name of colors used in order: red, skyblue, darkseagreen, thistle, royalblue, mediumseagreen, tomato, blue, and green.
      */
-    private void updateCell(int row, int column) {
-        if(game.isVisibleAt(row, column)) {
-            if(game.isEmptyAt(row, column)) {
-                board[row][column].setBackground(Color.white.brighter());
-                board[row][column].setText("");
-                disableJLabel(board[row][column]);
-            }
-            else if(game.isMineAt(row, column)) {
-                board[row][column].setBackground(Color.red.brighter());
-                disableJLabel(board[row][column]);
-            }
-            else {
-                String colorChoices[] = new String[]{"#FF0000", "#87CEEB", "#8FBC8F", "#D8BFD8", "#4169E1", "#3CB371", "#FF6347", "#0000FF", "#008000"};
-                int value = game.getValueAt(row, column);
-
-                board[row][column].setBackground(Color.white.brighter());
-                board[row][column].setText("<html><font size=6 color=" + colorChoices[value] + ">" + value + "</font></span></html>");
-                board[row][column].removeMouseListener(boardListener);
-            }
+    private void updateCell(int row, int column, int state) {
+        if(state == Minesweeper.EMPTY_VALUE) {
+            board[row][column].setBackground(Color.white.brighter());
+            board[row][column].setText("");
+            disableJLabel(board[row][column]);
+        }
+        else if(state == Minesweeper.MINE_VALUE) {
+            board[row][column].setBackground(Color.red.brighter());
+            disableJLabel(board[row][column]);
+        }
+        else if(state != Minesweeper.HIDDEN_STATE && state != Minesweeper.FLAG_STATE) {
+            board[row][column].setBackground(Color.white.brighter());
+            board[row][column].setText("<html><font size=6 color=" + NUMBER_COLORS[state] + ">" + state + "</font></span></html>");
+            board[row][column].removeMouseListener(boardListener);
         }
     }
 
     /**
      * Updates the entire minesweeper gui.
-     * It only displays cells that are visible.
+     * It reads what the player can see of the whole board in one go, and only displays cells that are visible.
      */
     private void updateBoard() {
+        MinesweeperMetrics.EventDispatchEvent event = MinesweeperMetrics.beginEventDispatch();
         int columns = game.getColumns();
         int rows = game.getRows();
 
+        if(states.length < rows * columns) {
+            states = new byte[rows * columns];
+        }
+        game.getStatesIn(0, 0, rows, columns, states, 0);
+
         for(int row = 0; row < rows; row++) {
             for(int column = 0; column < columns; column++) {
-                updateCell(row, column);
+                updateCell(row, column, states[row * columns + column]);
             }
         }
+
+        MinesweeperMetrics.endEventDispatch(event, MinesweeperMetrics.Kind.UPDATE_BOARD);
     }
 
     /**
@@ -359,12 +615,21 @@ public class MinesweeperPanel extends JPanel {
     private void updateGame(int row, int column) {
         if(!game.isFlagAt(row, column)) {
             if(isFirstTurn) {
+                MinesweeperMetrics.FirstTurnEvent event = MinesweeperMetrics.beginFirstTurn();
+                int retries = 0;
+
                 isFirstTurn = false;
+                clicks = 0;
+                gameStartTime = System.nanoTime();
                     while(!game.isEmptyAt(row, column)) {
                         game.randomizeBoard();
+                        retries++;
                     }
+
+                MinesweeperMetrics.endFirstTurn(event, retries);
             }
 
+            clicks++;
             game.playAt(row, column);
             highlightLabel(board[row][column], false);
 
@@ -372,15 +637,18 @@ public class MinesweeperPanel extends JPanel {
                 updateBoard();
             }
             else {
-                updateCell(row, column);
+                updateCell(row, column, game.getStateAt(row, column));
             }
 
             if(game.isOver()) {
                 lockBoard();
+                recordGame();
             }
             else if(game.isWon()) {
                 lockMines();
+                recordGame();
             }
+            requestHint();
         }
     }
 
@@ -392,6 +660,7 @@ public class MinesweeperPanel extends JPanel {
          * Handles mouse pressed action for a cell.
          */
         public void mousePressed(MouseEvent e) {
+            MinesweeperMetrics.EventDispatchEvent event = MinesweeperMetrics.beginEventDispatch();
             int button = e.getButton();
 
             if(button == MouseEvent.BUTTON1) {
@@ -406,6 +675,8 @@ public class MinesweeperPanel extends JPanel {
             }
 
             repaint();
+
+            MinesweeperMetrics.endEventDispatch(event, MinesweeperMetrics.Kind.MOUSE_PRESSED);
         }
 
         /**
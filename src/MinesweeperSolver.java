@@ -0,0 +1,365 @@
+/**
+ * A class used to find the safest cell to play on a minesweeper board.
+ * It works on a copy of what the player can see, taken when it is created, so the search can run on any thread
+ * while the game carries on. It never looks at where the mines actually are.
+ * For example:
+ * <pre>
+ *     MinesweeperSolver solver = new MinesweeperSolver(minesweeper);
+ *     MinesweeperSolver.Hint hint = solver.findHint();
+ * </pre>
+ * Hints are remembered in a cache keyed by the board's frontier hash, so positions that come up again are answered straight away.
+ *
+ * @version 2026/10/18
+ */
+
+public final class MinesweeperSolver {
+    private static final byte UNKNOWN = 0, SAFE = 1, MINE = 2;
+    private static final FrontierCache<Hint> hintCache = new FrontierCache<>(4096);
+    private int columns;
+    private int hiddenCells;
+    private int mines;
+    private long positionKey;
+    private int neighbourStart[];
+    private int neighbours[];
+    private byte knowledge[];
+    private byte states[];
+
+    /**
+     * Creates a solver for the current position of the given game.
+     * This copies every cell the player can see, so it should be called on the thread that plays the game.
+     *
+     * @throws IllegalStateException if the board is too large to keep a neighbour table
+     */
+    public MinesweeperSolver(Minesweeper game) {
+        int rows = game.getRows();
+        NeighbourTable table = game.getNeighbourTable();
+
+        columns = game.getColumns();
+        mines = game.getMines();
+        neighbourStart = table.start;
+        neighbours = table.neighbours;
+        states = new byte[rows * columns];
+        knowledge = new byte[rows * columns];
+
+        game.getStatesIn(0, 0, rows, columns, states, 0);
+        for(byte state : states) {
+            if(state == Minesweeper.HIDDEN_STATE || state == Minesweeper.FLAG_STATE) {
+                hiddenCells++;
+            }
+        }
+
+        // the frontier hash alone does not say how many hidden cells and mines are left, which changes the odds away from the frontier,
+        // nor which board it is on, since the cache is shared by every board and an empty frontier hashes to 0 on all of them
+        positionKey = game.getFrontierHash() ^ ((long) hiddenCells << 32 | mines) * 0x9E3779B97F4A7C15L
+                ^ ((long) rows << 40 ^ (long) columns << 16 ^ game.getTopology().ordinal()) * 0xC2B2AE3D27D4EB4FL;
+    }
+
+    /**
+     * Returns the cache of hints shared by every solver.
+     */
+    public static FrontierCache<Hint> getHintCache() {
+        return hintCache;
+    }
+
+    /**
+     * Finds the safest hidden, unflagged cell to play.
+     * It first marks every cell whose contents follow for certain from the numbers around it.
+     * If that finds a safe cell, that cell is the hint. Otherwise it estimates the chance that each hidden cell is a mine
+     * and the hint is the cell with the lowest chance.
+     *
+     * @return the hint, or null if there is no cell to play or the search was interrupted
+     */
+    public Hint findHint() {
+        Hint hint = hintCache.get(positionKey);
+
+        if(hint == null && !Thread.currentThread().isInterrupted()) {
+            hint = search();
+            if(hint != null) {
+                hintCache.put(positionKey, hint);
+            }
+        }
+        return hint;
+    }
+
+    /**
+     * Marks what it can for certain and then picks the safest cell.
+     */
+    private Hint search() {
+        boolean isChanged = true;
+
+        while(isChanged) {
+            if(Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            isChanged = applySingleRule() | applySubsetRule();
+        }
+
+        int bestIndex = -1;
+        double bestRisk = 2;
+
+        for(int index = 0; index < states.length; index++) {
+            if(states[index] == Minesweeper.HIDDEN_STATE && knowledge[index] != MINE) {
+                double risk = knowledge[index] == SAFE ? 0 : estimateRiskAt(index);
+
+                if(risk < bestRisk) {
+                    bestRisk = risk;
+                    bestIndex = index;
+                }
+            }
+        }
+        return bestIndex == -1 ? null : new Hint(bestIndex / columns, bestIndex % columns, bestRisk);
+    }
+
+    /**
+     * Looks at every number on its own.
+     * If the number already has as many known mines around it as it says, the rest of the cells around it are safe.
+     * If it has exactly as many unknown cells left around it as it is missing mines, they are all mines.
+     *
+     * @return true if anything new was marked, false otherwise
+     */
+    private boolean applySingleRule() {
+        boolean isChanged = false;
+
+        for(int index = 0; index < states.length; index++) {
+            int value = states[index];
+
+            if(value > Minesweeper.EMPTY_VALUE && value < Minesweeper.HIDDEN_STATE) {
+                int knownMines = 0;
+                int unknownCells = 0;
+
+                for(int position = neighbourStart[index]; position < neighbourStart[index + 1]; position++) {
+                    int neighbour = neighbours[position];
+
+                    if(isHidden(neighbour)) {
+                        if(knowledge[neighbour] == MINE) {
+                            knownMines++;
+                        }
+                        else if(knowledge[neighbour] == UNKNOWN) {
+                            unknownCells++;
+                        }
+                    }
+                }
+
+                if(unknownCells > 0 && (knownMines == value || value - knownMines == unknownCells)) {
+                    byte mark = knownMines == value ? SAFE : MINE;
+
+                    for(int position = neighbourStart[index]; position < neighbourStart[index + 1]; position++) {
+                        int neighbour = neighbours[position];
+
+                        if(isHidden(neighbour) && knowledge[neighbour] == UNKNOWN) {
+                            knowledge[neighbour] = mark;
+                        }
+                    }
+                    isChanged = true;
+                }
+            }
+        }
+        return isChanged;
+    }
+
+    /**
+     * Looks at pairs of numbers that share unknown cells.
+     * If every unknown cell around the first number is also around the second, the cells only around the second number
+     * hold exactly the difference between how many mines each number is missing.
+     * So they are all safe if that difference is zero, and all mines if it equals how many of them there are.
+     *
+     * @return true if anything new was marked, false otherwise
+     */
+    private boolean applySubsetRule() {
+        boolean isChanged = false;
+        int firstCells[] = new int[BoardTopology.MAX_NEIGHBOURS];
+        int secondCells[] = new int[BoardTopology.MAX_NEIGHBOURS];
+
+        for(int first = 0; first < states.length; first++) {
+            int firstCount = collectUnknownAt(first, firstCells);
+
+            if(firstCount == 0) {
+                continue;
+            }
+            int firstMissing = getMissingMinesAt(first);
+
+            // any number sharing an unknown cell with the first number is a neighbour of one of its unknown cells
+            for(int counter = 0; counter < firstCount; counter++) {
+                int cell = firstCells[counter];
+
+                for(int position = neighbourStart[cell]; position < neighbourStart[cell + 1]; position++) {
+                    int second = neighbours[position];
+
+                    if(second == first) {
+                        continue;
+                    }
+                    int secondCount = collectUnknownAt(second, secondCells);
+
+                    if(secondCount > firstCount && contains(secondCells, secondCount, firstCells, firstCount)) {
+                        int difference = getMissingMinesAt(second) - firstMissing;
+                        int extraCells = secondCount - firstCount;
+
+                        if(difference == 0 || difference == extraCells) {
+                            for(int extra = 0; extra < secondCount; extra++) {
+                                if(!contains(firstCells, firstCount, secondCells[extra])) {
+                                    knowledge[secondCells[extra]] = difference == 0 ? SAFE : MINE;
+                                }
+                            }
+                            isChanged = true;
+                        }
+                    }
+                }
+            }
+        }
+        return isChanged;
+    }
+
+    /**
+     * Estimates the chance that the given unknown cell is a mine.
+     * Next to a number, it is the highest share of missing mines among the unknown cells around any of the numbers it touches.
+     * Away from every number, it is the share of the remaining mines among the remaining unknown cells.
+     */
+    private double estimateRiskAt(int index) {
+        double risk = -1;
+        int cells[] = new int[BoardTopology.MAX_NEIGHBOURS];
+
+        for(int position = neighbourStart[index]; position < neighbourStart[index + 1]; position++) {
+            int neighbour = neighbours[position];
+            int count = collectUnknownAt(neighbour, cells);
+
+            if(count > 0) {
+                risk = Math.max(risk, (double) getMissingMinesAt(neighbour) / count);
+            }
+        }
+
+        if(risk < 0) {
+            int knownMines = 0;
+            int unknownCells = 0;
+
+            for(int cell = 0; cell < states.length; cell++) {
+                if(isHidden(cell)) {
+                    if(knowledge[cell] == MINE) {
+                        knownMines++;
+                    }
+                    else if(knowledge[cell] == UNKNOWN) {
+                        unknownCells++;
+                    }
+                }
+            }
+            risk = unknownCells == 0 ? 1 : (double) (mines - knownMines) / unknownCells;
+        }
+        return risk;
+    }
+
+    /**
+     * Writes the unknown cells around the given number to the given array.
+     *
+     * @return the number of unknown cells written, which is 0 if the given cell is not a visible number
+     */
+    private int collectUnknownAt(int index, int cells[]) {
+        int value = states[index];
+        int count = 0;
+
+        if(value > Minesweeper.EMPTY_VALUE && value < Minesweeper.HIDDEN_STATE) {
+            for(int position = neighbourStart[index]; position < neighbourStart[index + 1]; position++) {
+                int neighbour = neighbours[position];
+
+                if(isHidden(neighbour) && knowledge[neighbour] == UNKNOWN) {
+                    cells[count++] = neighbour;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns how many mines around the given number are not known yet.
+     */
+    private int getMissingMinesAt(int index) {
+        int missing = states[index];
+
+        for(int position = neighbourStart[index]; position < neighbourStart[index + 1]; position++) {
+            if(knowledge[neighbours[position]] == MINE) {
+                missing--;
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Returns true if the given cell is not visible, false otherwise.
+     */
+    private boolean isHidden(int index) {
+        return states[index] == Minesweeper.HIDDEN_STATE || states[index] == Minesweeper.FLAG_STATE;
+    }
+
+    /**
+     * Returns true if the first count values of the given array contain the given value, false otherwise.
+     */
+    private static boolean contains(int values[], int count, int value) {
+        for(int counter = 0; counter < count; counter++) {
+            if(values[counter] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the first values of the outer array contain every one of the first values of the inner array, false otherwise.
+     */
+    private static boolean contains(int outer[], int outerCount, int inner[], int innerCount) {
+        for(int counter = 0; counter < innerCount; counter++) {
+            if(!contains(outer, outerCount, inner[counter])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A suggested cell to play.
+     */
+    public static final class Hint {
+        private final int row;
+        private final int column;
+        private final double risk;
+
+        Hint(int row, int column, double risk) {
+            this.row = row;
+            this.column = column;
+            this.risk = risk;
+        }
+
+        /**
+         * Returns the row of the suggested cell.
+         */
+        public int getRow() {
+            return row;
+        }
+
+        /**
+         * Returns the column of the suggested cell.
+         */
+        public int getColumn() {
+            return column;
+        }
+
+        /**
+         * Returns the estimated chance that the suggested cell is a mine, which is 0 if it is certainly safe.
+         */
+        public double getRisk() {
+            return risk;
+        }
+
+        /**
+         * Returns true if the suggested cell is certainly safe, false otherwise.
+         */
+        public boolean isSafe() {
+            return risk == 0;
+        }
+
+        /**
+         * Returns a nicely formatted string of the hint.
+         */
+        @Override
+        public String toString() {
+            return getClass().getName() + "[row=" + row + ", column=" + column + ", risk=" + risk + "]";
+        }
+    }
+}
@@ -0,0 +1,530 @@
+/**
+ * A class used to keep the results of finished games of minesweeper on disk.
+ * Every finished game is appended to a log as a fixed-size record of its size, mine percentage, topology, seed, duration,
+ * number of clicks, and whether it was won. Records are never changed once written.
+ * The win rate and best time of each board configuration are kept in memory, and saved to a small index next to the log
+ * every few thousand records and on close, along with how much of the log the index covers.
+ * Opening the store loads the index and only replays the records written after it, so opening stays quick however long the log grows.
+ * Only one store can have a directory open at a time, so a second open on the same directory fails until the first is closed.
+ * For example:
+ * <pre>
+ *     MinesweeperStatistics statistics = MinesweeperStatistics.open(Paths.get("statistics"));
+ *     statistics.record(game, durationMillis, clicks);
+ *     MinesweeperStatistics.Summary summary = statistics.getSummary(16, 16, 15, BoardTopology.RECTANGLE);
+ *     statistics.close();
+ * </pre>
+ * To print the summary of every configuration played:
+ * <pre>
+ *     java MinesweeperStatistics statistics
+ * </pre>
+ *
+ * @version 2026/10/18
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class MinesweeperStatistics {
+    public static final int RECORD_BYTES = 32;
+    public static final int MAX_SIDE = 0xFFFF;
+    private static final int INDEX_INTERVAL = 4096;
+    private static final int BUFFERED_RECORDS = 256;
+    private static final long INDEX_MAGIC = 0x4D53535441545331L;
+    private static final String LOG_FILE = "games.log", INDEX_FILE = "games.index";
+    private long indexedBytes;
+    private long logBytes;
+    private final Path indexFile;
+    private final FileChannel log;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES * BUFFERED_RECORDS);
+    private final Map<Long, Summary> summaries = new HashMap<>();
+
+    /**
+     * Opens the store kept in the given directory, loading the index and replaying the records written after it.
+     */
+    private MinesweeperStatistics(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        indexFile = directory.resolve(INDEX_FILE);
+        log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            lock();
+            load();
+        }
+        catch(IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes an exclusive lock on the log, which is held until the store is closed.
+     * Every store writes at the end of the log as it last saw it, so a second store on the same directory would overwrite the records of the first.
+     *
+     * @throws IOException if another store, in this or any other program, already has the log open
+     */
+    private void lock() throws IOException {
+        FileLock lock;
+
+        try {
+            lock = log.tryLock();
+        }
+        catch(OverlappingFileLockException e) {
+            lock = null;
+        }
+        if(lock == null) {
+            throw new IOException("the statistics in " + indexFile.getParent() + " are already open elsewhere");
+        }
+    }
+
+    /**
+     * Drops any record cut short by a crash, loads the index, and replays the records written after it.
+     */
+    private void load() throws IOException {
+        // a record cut short by a crash is dropped, so every record after it starts on a record boundary again
+        logBytes = log.size() - log.size() % RECORD_BYTES;
+        log.truncate(logBytes);
+        log.position(logBytes);
+
+        loadIndex();
+        replay(indexedBytes);
+        if(logBytes - indexedBytes >= (long) INDEX_INTERVAL * RECORD_BYTES) {
+            saveIndex();
+        }
+    }
+
+    /**
+     * Opens the store kept in the given directory, creating the directory if it does not exist yet.
+     *
+     * @param directory the directory the log and the index are kept in
+     * @throws IOException if the log could not be opened or read
+     */
+    public static MinesweeperStatistics open(Path directory) throws IOException {
+        return new MinesweeperStatistics(directory);
+    }
+
+    /**
+     * Returns the directory the statistics of the player are kept in, which is .minesweeper in their home directory.
+     */
+    public static Path getDefaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".minesweeper");
+    }
+
+    /**
+     * The main method, which prints the summary of every configuration played.
+     * The argument is optionally the directory the statistics are kept in.
+     */
+    public static void main(String[] args) throws IOException {
+        MinesweeperStatistics statistics = open(args.length > 0 ? Paths.get(args[0]) : getDefaultDirectory());
+
+        System.out.printf("%-10s %5s %5s %8s %8s %8s %12s %12s%n", "Topology", "Rows", "Cols", "Mines %", "Games", "Win %", "Best (s)", "Mean win (s)");
+        for(Summary summary : statistics.getSummaries()) {
+            System.out.printf("%-10s %5d %5d %8d %8d %8.1f %12.3f %12.3f%n", summary.getTopology(), summary.getRows(), summary.getColumns(),
+                    summary.getMinePercentage(), summary.getGames(), summary.getWinRate() * 100,
+                    summary.getBestMillis() / 1e3, summary.getMeanWinMillis() / 1e3);
+        }
+        statistics.close();
+    }
+
+    /**
+     * Records a finished game.
+     *
+     * @param game           the game, which has to be over or won
+     * @param durationMillis how long the game took in milliseconds
+     * @param clicks         how many times the player tried or flagged a cell
+     * @throws IOException if the record could not be written
+     */
+    public void record(Minesweeper game, long durationMillis, int clicks) throws IOException {
+        record(game.getRows(), game.getColumns(), game.getMinePercentage(), game.getTopology(), game.getSeed(),
+                durationMillis, clicks, game.isWon());
+    }
+
+    /**
+     * Records a finished game.
+     * Records are written in batches, so call flush to make sure they are on disk.
+     *
+     * @param rows           the number of rows on the board
+     * @param columns        the number of columns on the board
+     * @param minePercentage the mine percentage
+     * @param topology       the topology of the board
+     * @param seed           the seed of the board
+     * @param durationMillis how long the game took in milliseconds
+     * @param clicks         how many times the player tried or flagged a cell
+     * @param isWon          true if the game was won, false if it was lost
+     * @throws IOException if the record could not be written
+     * @throws IllegalArgumentException if the game does not fit in a record, which holds up to MAX_SIDE rows and columns,
+     *                                  a mine percentage from 0 to 100, and a click count that is not negative
+     */
+    public synchronized void record(int rows, int columns, int minePercentage, BoardTopology topology, long seed,
+                                    long durationMillis, int clicks, boolean isWon) throws IOException {
+        // replay drops every record from the first one it does not accept, so anything it would not accept is never written
+        if(!isValid(rows, columns, minePercentage, topology.ordinal()) || minePercentage < 0 || clicks < 0) {
+            throw new IllegalArgumentException("a " + rows + " by " + columns + " board with " + minePercentage + " percent mines and "
+                    + clicks + " clicks does not fit in a record");
+        }
+        int duration = (int) Math.min(Integer.MAX_VALUE, Math.max(0, durationMillis));
+
+        buffer.putShort((short) rows);
+        buffer.putShort((short) columns);
+        buffer.put((byte) minePercentage);
+        buffer.put((byte) topology.ordinal());
+        buffer.put((byte) (isWon ? 1 : 0));
+        buffer.put((byte) 0);
+        buffer.putInt(clicks);
+        buffer.putInt(duration);
+        buffer.putLong(seed);
+        buffer.putLong(System.currentTimeMillis());
+
+        getOrCreateSummary(rows, columns, minePercentage, topology).add(duration, isWon);
+
+        if(!buffer.hasRemaining()) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes every buffered record to the log, and saves the index if enough records have been written since it was last saved.
+     *
+     * @throws IOException if the records or the index could not be written
+     */
+    public synchronized void flush() throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            logBytes += log.write(buffer);
+        }
+        buffer.clear();
+
+        if(logBytes - indexedBytes >= (long) INDEX_INTERVAL * RECORD_BYTES) {
+            saveIndex();
+        }
+    }
+
+    /**
+     * Writes every buffered record, saves the index, and closes the log.
+     *
+     * @throws IOException if the records or the index could not be written
+     */
+    public synchronized void close() throws IOException {
+        flush();
+        if(logBytes != indexedBytes) {
+            saveIndex();
+        }
+        log.force(false);
+        log.close();
+    }
+
+    /**
+     * Returns the number of games recorded.
+     */
+    public synchronized long getGames() {
+        return (logBytes + buffer.position()) / RECORD_BYTES;
+    }
+
+    /**
+     * Returns the summary of the games played on the given configuration, or null if none were played.
+     *
+     * @param rows           the number of rows on the board
+     * @param columns        the number of columns on the board
+     * @param minePercentage the mine percentage
+     * @param topology       the topology of the board
+     */
+    public synchronized Summary getSummary(int rows, int columns, int minePercentage, BoardTopology topology) {
+        Summary summary = summaries.get(getKey(rows, columns, minePercentage, topology.ordinal()));
+
+        return summary == null ? null : summary.copy();
+    }
+
+    /**
+     * Returns the summary of every configuration played, ordered by topology, rows, columns, and mine percentage.
+     */
+    public synchronized List<Summary> getSummaries() {
+        List<Summary> result = new ArrayList<>(summaries.size());
+
+        for(Summary summary : summaries.values()) {
+            result.add(summary.copy());
+        }
+        result.sort(Comparator.comparingLong(summary -> getKey(summary.rows, summary.columns, summary.minePercentage, summary.topology)));
+        return result;
+    }
+
+    /**
+     * Returns the summary of the given configuration, creating an empty one if it was never played.
+     */
+    private Summary getOrCreateSummary(int rows, int columns, int minePercentage, BoardTopology topology) {
+        long key = getKey(rows, columns, minePercentage, topology.ordinal());
+        Summary summary = summaries.get(key);
+
+        if(summary == null) {
+            summary = new Summary(rows, columns, minePercentage, topology.ordinal());
+            summaries.put(key, summary);
+        }
+        return summary;
+    }
+
+    /**
+     * Returns the key a configuration is kept under.
+     */
+    private static long getKey(int rows, int columns, int minePercentage, int topology) {
+        return (long) topology << 48 | (long) (rows & 0xFFFF) << 32 | (long) (columns & 0xFFFF) << 16 | minePercentage & 0xFF;
+    }
+
+    /**
+     * Reads every record in the log from the given offset onwards into the summaries.
+     * The log is cut off at the first record that could not have been written by record, since nothing after damage can be trusted.
+     */
+    private void replay(long offset) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(RECORD_BYTES * 32768);
+        long position = offset;
+
+        while(position < logBytes) {
+            chunk.clear();
+            chunk.limit((int) Math.min(chunk.capacity(), logBytes - position));
+            while(chunk.hasRemaining()) {
+                if(log.read(chunk, position + chunk.position()) < 0) {
+                    throw new IOException("the log ended before " + logBytes + " bytes");
+                }
+            }
+            chunk.flip();
+            position += chunk.remaining();
+
+            while(chunk.hasRemaining()) {
+                int rows = chunk.getShort() & 0xFFFF;
+                int columns = chunk.getShort() & 0xFFFF;
+                int minePercentage = chunk.get() & 0xFF;
+                int topology = chunk.get() & 0xFF;
+                int isWon = chunk.get();
+                int padding = chunk.get();
+                int clicks = chunk.getInt();
+                int duration = chunk.getInt();
+                chunk.getLong();
+                chunk.getLong();
+
+                if(!isValid(rows, columns, minePercentage, topology) || (isWon & ~1) != 0 || padding != 0 || clicks < 0 || duration < 0) {
+                    logBytes = position - chunk.remaining() - RECORD_BYTES;
+                    log.truncate(logBytes);
+                    log.position(logBytes);
+                    return;
+                }
+                getOrCreateSummary(rows, columns, minePercentage, BoardTopology.values()[topology]).add(duration, isWon == 1);
+            }
+        }
+    }
+
+    /**
+     * Returns true if a board of the given configuration could have been recorded, false otherwise.
+     */
+    private static boolean isValid(int rows, int columns, int minePercentage, int topology) {
+        return rows > 0 && rows <= MAX_SIDE && columns > 0 && columns <= MAX_SIDE && minePercentage <= 100
+                && topology < BoardTopology.values().length;
+    }
+
+    /**
+     * Loads the summaries from the index, along with how much of the log they cover.
+     * If the index is missing, damaged, or covers more of the log than there is, it is ignored and the whole log is replayed instead.
+     */
+    private void loadIndex() {
+        indexedBytes = 0;
+        if(!Files.exists(indexFile)) {
+            return;
+        }
+
+        try(InputStream stream = Files.newInputStream(indexFile)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+            Map<Long, Summary> loaded = new HashMap<>();
+
+            if(in.readLong() != INDEX_MAGIC) {
+                return;
+            }
+            long coveredBytes = in.readLong();
+            int count = in.readInt();
+
+            for(int counter = 0; counter < count; counter++) {
+                Summary summary = new Summary(in.readUnsignedShort(), in.readUnsignedShort(), in.readUnsignedByte(), in.readUnsignedByte());
+
+                if(!isValid(summary.rows, summary.columns, summary.minePercentage, summary.topology)) {
+                    throw new IOException("the index holds a configuration that cannot be played");
+                }
+                summary.games = in.readLong();
+                summary.wins = in.readLong();
+                summary.bestMillis = in.readInt();
+                summary.totalWinMillis = in.readLong();
+                loaded.put(getKey(summary.rows, summary.columns, summary.minePercentage, summary.topology), summary);
+            }
+
+            if(coveredBytes <= logBytes && coveredBytes % RECORD_BYTES == 0) {
+                summaries.putAll(loaded);
+                indexedBytes = coveredBytes;
+            }
+        }
+        catch(IOException | IndexOutOfBoundsException e) {
+            summaries.clear();
+        }
+    }
+
+    /**
+     * Saves the summaries to the index, along with how much of the log they cover.
+     * The index is written to a temporary file that then replaces it, so a crash never leaves half an index behind.
+     */
+    private void saveIndex() throws IOException {
+        Path temporaryFile = indexFile.resolveSibling(INDEX_FILE + ".tmp");
+
+        // the log has to be on disk before an index that covers it
+        log.force(false);
+        try(OutputStream stream = Files.newOutputStream(temporaryFile)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+
+            out.writeLong(INDEX_MAGIC);
+            out.writeLong(logBytes);
+            out.writeInt(summaries.size());
+            for(Summary summary : summaries.values()) {
+                out.writeShort(summary.rows);
+                out.writeShort(summary.columns);
+                out.writeByte(summary.minePercentage);
+                out.writeByte(summary.topology);
+                out.writeLong(summary.games);
+                out.writeLong(summary.wins);
+                out.writeInt(summary.bestMillis);
+                out.writeLong(summary.totalWinMillis);
+            }
+            out.flush();
+        }
+        Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        indexedBytes = logBytes;
+    }
+
+    /**
+     * The games played on a single board configuration.
+     */
+    public static final class Summary {
+        private final int rows;
+        private final int columns;
+        private final int minePercentage;
+        private final int topology;
+        private long games;
+        private long wins;
+        private int bestMillis = Integer.MAX_VALUE;
+        private long totalWinMillis;
+
+        Summary(int rows, int columns, int minePercentage, int topology) {
+            this.rows = rows;
+            this.columns = columns;
+            this.minePercentage = minePercentage;
+            this.topology = topology;
+        }
+
+        /**
+         * Adds a single game.
+         */
+        void add(int durationMillis, boolean isWon) {
+            games++;
+            if(isWon) {
+                wins++;
+                totalWinMillis += durationMillis;
+                bestMillis = Math.min(bestMillis, durationMillis);
+            }
+        }
+
+        /**
+         * Returns a copy of the summary, so callers never see it change.
+         */
+        Summary copy() {
+            Summary copy = new Summary(rows, columns, minePercentage, topology);
+
+            copy.games = games;
+            copy.wins = wins;
+            copy.bestMillis = bestMillis;
+            copy.totalWinMillis = totalWinMillis;
+            return copy;
+        }
+
+        /**
+         * Returns the number of rows on the board.
+         */
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * Returns the number of columns on the board.
+         */
+        public int getColumns() {
+            return columns;
+        }
+
+        /**
+         * Returns the mine percentage.
+         */
+        public int getMinePercentage() {
+            return minePercentage;
+        }
+
+        /**
+         * Returns the topology of the board.
+         */
+        public BoardTopology getTopology() {
+            return BoardTopology.values()[topology];
+        }
+
+        /**
+         * Returns the number of games played.
+         */
+        public long getGames() {
+            return games;
+        }
+
+        /**
+         * Returns the number of games won.
+         */
+        public long getWins() {
+            return wins;
+        }
+
+        /**
+         * Returns the share of games won, from 0 to 1.
+         */
+        public double getWinRate() {
+            return games == 0 ? 0 : (double) wins / games;
+        }
+
+        /**
+         * Returns the quickest win in milliseconds, or -1 if no game was won.
+         */
+        public long getBestMillis() {
+            return wins == 0 ? -1 : bestMillis;
+        }
+
+        /**
+         * Returns the mean time of a win in milliseconds, or -1 if no game was won.
+         */
+        public double getMeanWinMillis() {
+            return wins == 0 ? -1 : (double) totalWinMillis / wins;
+        }
+
+        /**
+         * Returns a nicely formatted string of the summary.
+         */
+        @Override
+        public String toString() {
+            return getClass().getName() + "[topology=" + getTopology() + ", rows=" + rows + ", columns=" + columns
+                    + ", minePercentage=" + minePercentage + ", games=" + games + ", wins=" + wins + ", bestMillis=" + getBestMillis() + "]";
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/**
+ * A basic main to play a game of minesweeper in a terminal, with no need for a display.
+ * It shows the board with the same characters as Minesweeper.toString and reads the keyboard and mouse in raw mode.
+ * Only the cells that changed since the last frame are redrawn, using ANSI cursor moves, and each frame is sent in a single write,
+ * so it stays responsive on large boards over slow connections.
+ * For example, to play a 16 by 30 board with 15 percent mines:
+ * <pre>
+ *     java MinesweeperTerminal 16 30 15
+ * </pre>
+ * Keyboard controls: Move [Arrows, hjkl, wasd], Try a cell [Space, Enter], Flag a cell [f], Randomize board [r], Quit [q].
+ * Mouse controls: Try a cell [Left click], Flag a cell [Right click].
+ *
+ * @version 2026/10/18
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class MinesweeperTerminal {
+    private static final String ESCAPE = "\u001b[";
+    private static final String NUMBER_COLORS[] = {"", "31", "36", "32", "35", "34", "32;1", "31;1", "34;1"};
+    private boolean isFirstTurn;
+    private boolean isFullRedraw;
+    private int cursorColumn;
+    private int cursorRow;
+    private String drawnStatus;
+    private char drawnGlyphs[];
+    private byte drawnStyles[];
+    private byte states[];
+    private long mineBits[];
+    private Minesweeper game;
+    private final InputStream in;
+    private final OutputStream out;
+    private final StringBuilder frame = new StringBuilder();
+
+    /**
+     * Creates a terminal game of size rows by columns that reads from the given input and draws to the given output.
+     */
+    public MinesweeperTerminal(int rows, int columns, int minePercentage, InputStream in, OutputStream out) {
+        this.in = in;
+        this.out = out;
+        initializeBoard(rows, columns, minePercentage);
+    }
+
+    /**
+     * The main method, which puts the terminal into raw mode, plays until the player quits, and then restores the terminal.
+     * The arguments are optionally the number of rows, the number of columns, and the mine percentage.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        int columns = args.length > 1 ? Integer.parseInt(args[1]) : 9;
+        int minePercentage = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        String savedSettings = null;
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16);
+        MinesweeperTerminal terminal = new MinesweeperTerminal(rows, columns, minePercentage, System.in, out);
+
+        // without a controlling terminal stty fails, and input is simply read a line at a time instead
+        try {
+            savedSettings = stty("-g").trim();
+            stty("raw", "-echo");
+        }
+        catch(IOException e) {}
+
+        final String settings = savedSettings;
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            public void run() {
+                try {
+                    out.write((ESCAPE + "?1006l" + ESCAPE + "?1000l" + ESCAPE + "0m" + ESCAPE + "?25h" + ESCAPE + "?1049l")
+                            .getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                    if(settings != null) {
+                        stty(settings);
+                    }
+                }
+                catch(IOException | InterruptedException e) {}
+            }
+        }));
+
+        // alternate screen, hidden cursor, and mouse clicks reported in the SGR format
+        out.write((ESCAPE + "?1049h" + ESCAPE + "?25l" + ESCAPE + "?1000h" + ESCAPE + "?1006h").getBytes(StandardCharsets.US_ASCII));
+        terminal.run();
+        System.exit(0);
+    }
+
+    /**
+     * Runs stty against the controlling terminal with the given arguments and returns what it printed.
+     */
+    private static String stty(String... arguments) throws IOException, InterruptedException {
+        String command[] = new String[arguments.length + 1];
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        command[0] = "stty";
+        System.arraycopy(arguments, 0, command, 1, arguments.length);
+
+        Process process = new ProcessBuilder(command).redirectInput(new File("/dev/tty")).start();
+        process.getInputStream().transferTo(output);
+        process.waitFor();
+        return output.toString(StandardCharsets.US_ASCII.name());
+    }
+
+    /**
+     * Draws the board and handles input until the player quits.
+     */
+    public void run() throws IOException {
+        render();
+
+        for(int key = in.read(); key != -1 && key != 'q' && key != 'Q'; key = in.read()) {
+            handleKey(key);
+            render();
+        }
+    }
+
+    /**
+     * Handles a single key, reading the rest of an escape sequence if the key starts one.
+     * Enter is only a carriage return in raw mode, so a line feed, which ends every line when input is read a line at a time, is ignored.
+     */
+    private void handleKey(int key) throws IOException {
+        if(key == 27) {
+            // the rest of an escape sequence arrives along with the escape, so an escape with nothing after it is the escape key on its own
+            if(in.available() > 0 && in.read() == '[') {
+                int code = in.read();
+
+                if(code == '<') {
+                    handleMouse();
+                }
+                else {
+                    moveCursor(code == 'A' ? -1 : code == 'B' ? 1 : 0, code == 'D' ? -1 : code == 'C' ? 1 : 0);
+                }
+            }
+        }
+        else if(key == 'k' || key == 'w') {
+            moveCursor(-1, 0);
+        }
+        else if(key == 'j' || key == 's') {
+            moveCursor(1, 0);
+        }
+        else if(key == 'h' || key == 'a') {
+            moveCursor(0, -1);
+        }
+        else if(key == 'l' || key == 'd') {
+            moveCursor(0, 1);
+        }
+        else if(key == ' ' || key == '\r') {
+            playAt(cursorRow, cursorColumn);
+        }
+        else if(key == 'f' || key == 'F') {
+            flagAt(cursorRow, cursorColumn);
+        }
+        else if(key == 'r' || key == 'R') {
+            randomizeBoard();
+        }
+        else if(key == 12) {
+            // ctrl-l redraws the whole screen, like most terminal programs
+            isFullRedraw = true;
+        }
+    }
+
+    /**
+     * Handles a mouse report in the SGR format (button;column;row followed by M for a press or m for a release).
+     */
+    private void handleMouse() throws IOException {
+        int values[] = new int[3];
+        int index = 0;
+        int current;
+
+        for(current = in.read(); current != 'M' && current != 'm' && current != -1; current = in.read()) {
+            if(current == ';') {
+                index = Math.min(index + 1, 2);
+            }
+            else {
+                values[index] = values[index] * 10 + current - '0';
+            }
+        }
+
+        // the board starts on the second line and each cell is two characters wide
+        int row = values[2] - 2;
+        int column = (values[1] - 1) / 2;
+
+        if(current == 'M' && game.isInboundsAt(row, column)) {
+            cursorRow = row;
+            cursorColumn = column;
+            if(values[0] == 0) {
+                playAt(row, column);
+            }
+            else if(values[0] == 2) {
+                flagAt(row, column);
+            }
+        }
+    }
+
+    /**
+     * Moves the cursor by the given amount, keeping it on the board.
+     */
+    private void moveCursor(int rowChange, int columnChange) {
+        cursorRow = Math.max(0, Math.min(game.getRows() - 1, cursorRow + rowChange));
+        cursorColumn = Math.max(0, Math.min(game.getColumns() - 1, cursorColumn + columnChange));
+    }
+
+    /**
+     * Flags or unflags a cell, unless the game is on its first turn or has ended.
+     */
+    private void flagAt(int row, int column) {
+        if(!isFirstTurn && !game.isOver() && !game.isWon()) {
+            game.flagAt(row, column);
+        }
+    }
+
+    /**
+     * Plays at a cell, making sure the first move of a game always uncovers an empty cell.
+     */
+    private void playAt(int row, int column) {
+        if(game.isOver() || game.isWon() || game.isFlagAt(row, column)) {
+            return;
+        }
+
+        if(isFirstTurn) {
+            MinesweeperMetrics.FirstTurnEvent event = MinesweeperMetrics.beginFirstTurn();
+            int retries = 0;
+
+            isFirstTurn = false;
+            while(!game.isEmptyAt(row, column)) {
+                game.randomizeBoard();
+                retries++;
+            }
+
+            MinesweeperMetrics.endFirstTurn(event, retries);
+        }
+        game.playAt(row, column);
+    }
+
+    /**
+     * Starts a new game on the same board.
+     */
+    private void randomizeBoard() {
+        isFirstTurn = true;
+        game.randomizeBoard();
+    }
+
+    /**
+     * Sets up a new game of size rows by columns.
+     */
+    private void initializeBoard(int rows, int columns, int minePercentage) {
+        isFirstTurn = true;
+        isFullRedraw = true;
+        game = new Minesweeper(rows, columns, minePercentage);
+        drawnGlyphs = new char[rows * columns];
+        drawnStyles = new byte[rows * columns];
+        states = new byte[rows * columns];
+        mineBits = new long[(rows * columns + Long.SIZE - 1) / Long.SIZE];
+        cursorRow = 0;
+        cursorColumn = 0;
+    }
+
+    /**
+     * Draws every cell and the status line that changed since the last frame, then sends the frame in a single write.
+     * Each cell is drawn as its character and a style: 0 for a plain cell, 1 for the cursor, 2 for a mine after a loss,
+     * and 3 for a mine after a win.
+     */
+    private void render() throws IOException {
+        int rows = game.getRows();
+        int columns = game.getColumns();
+        int lastRow = -1;
+        int lastColumn = -1;
+
+        // the whole board is read in one go, along with where the mines are once they are shown
+        game.getStatesIn(0, 0, rows, columns, states, 0);
+        if(game.isOver()) {
+            game.getMinesIn(0, 0, rows, columns, mineBits);
+        }
+
+        frame.setLength(0);
+        if(isFullRedraw) {
+            frame.append(ESCAPE).append("0m").append(ESCAPE).append("2J");
+            drawnStatus = null;
+        }
+
+        for(int row = 0; row < rows; row++) {
+            for(int column = 0; column < columns; column++) {
+                int index = row * columns + column;
+                int state = states[index];
+                byte style = 0;
+
+                if(game.isOver() && state == Minesweeper.HIDDEN_STATE && (mineBits[index >>> 6] & 1L << index) != 0) {
+                    state = Minesweeper.MINE_VALUE;
+                    style = 2;
+                }
+                else if(game.isWon() && (state == Minesweeper.HIDDEN_STATE || state == Minesweeper.FLAG_STATE)) {
+                    state = Minesweeper.FLAG_STATE;
+                    style = 3;
+                }
+                if(row == cursorRow && column == cursorColumn) {
+                    style = 1;
+                }
+
+                char glyph = Minesweeper.getGlyph(state);
+
+                if(isFullRedraw || drawnGlyphs[index] != glyph || drawnStyles[index] != style) {
+                    // the cursor only has to be moved when the cell does not directly follow the last one drawn
+                    if(row != lastRow || column != lastColumn + 1) {
+                        frame.append(ESCAPE).append(row + 2).append(';').append(column * 2 + 1).append('H');
+                    }
+                    appendCell(glyph, style, state);
+                    drawnGlyphs[index] = glyph;
+                    drawnStyles[index] = style;
+                    lastRow = row;
+                    lastColumn = column;
+                }
+            }
+        }
+
+        String status = getStatus();
+        if(!status.equals(drawnStatus)) {
+            frame.append(ESCAPE).append("1;1H").append(ESCAPE).append("0m").append(status).append(ESCAPE).append('K');
+            drawnStatus = status;
+        }
+        isFullRedraw = false;
+
+        if(frame.length() > 0) {
+            out.write(frame.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+    }
+
+    /**
+     * Appends a single cell, two characters wide, with its colors.
+     */
+    private void appendCell(char glyph, byte style, int state) {
+        frame.append(ESCAPE).append('0');
+        if(style == 1) {
+            frame.append(";7");
+        }
+        else if(style == 2) {
+            frame.append(";41");
+        }
+        else if(style == 3) {
+            frame.append(";42");
+        }
+        else if(state > Minesweeper.EMPTY_VALUE && state < NUMBER_COLORS.length) {
+            frame.append(';').append(NUMBER_COLORS[state]);
+        }
+        else if(state == Minesweeper.HIDDEN_STATE) {
+            frame.append(";2");
+        }
+        frame.append('m').append(glyph).append(' ');
+    }
+
+    /**
+     * Returns the status line shown above the board.
+     */
+    private String getStatus() {
+        String result = game.isOver() ? "Game over! [r] to play again" : game.isWon() ? "You won! [r] to play again" :
+                "[Arrows/hjkl] move [Space] try [f] flag [r] randomize [q] quit";
+
+        return String.format("Rows: %d  Columns: %d  Mines: %d  %s", game.getRows(), game.getColumns(), game.getMines(), result);
+    }
+}
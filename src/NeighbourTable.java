@@ -0,0 +1,51 @@
+/**
+ * A precomputed table of the neighbours of every cell on a board.
+ * The neighbours of the cell at a flat index (row * columns + column) are found at
+ * neighbours[start[index]] up to but not including neighbours[start[index + 1]],
+ * so walking the cells around a cell is a plain indexed loop with no bounds checks.
+ * For example:
+ * <pre>
+ *     NeighbourTable table = new NeighbourTable(BoardTopology.RECTANGLE, 9, 9);
+ *     for(int position = table.start[index]; position &lt; table.start[index + 1]; position++) {
+ *         int neighbour = table.neighbours[position];
+ *     }
+ * </pre>
+ *
+ * @version 2026/10/18
+ */
+
+final class NeighbourTable {
+    final int start[];
+    final int neighbours[];
+
+    /**
+     * Creates the neighbour table of a board of size rows by columns with the given topology.
+     * It first counts the neighbours of every cell to find where each cell's neighbours start,
+     * so the neighbours can then be written straight into an array of exactly the right size.
+     */
+    NeighbourTable(BoardTopology topology, int rows, int columns) {
+        int size = rows * columns;
+        int cellNeighbours[] = new int[BoardTopology.MAX_NEIGHBOURS];
+        int count = 0;
+
+        start = new int[size + 1];
+
+        for(int row = 0; row < rows; row++) {
+            for(int column = 0; column < columns; column++) {
+                start[row * columns + column] = count;
+                count += topology.neighboursAt(rows, columns, row, column, cellNeighbours);
+            }
+        }
+        start[size] = count;
+        neighbours = new int[count];
+
+        for(int row = 0; row < rows; row++) {
+            for(int column = 0; column < columns; column++) {
+                int index = row * columns + column;
+
+                topology.neighboursAt(rows, columns, row, column, cellNeighbours);
+                System.arraycopy(cellNeighbours, 0, neighbours, start[index], start[index + 1] - start[index]);
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * A basic main that measures how fast a SpectatorBroadcaster fans a game out to many subscribers.
+ * It plays random moves on a single board, publishing after every move, while the subscribers rebuild the board into views.
+ * By default a pool of threads drains every subscription in the same process.
+ * With socket as the fourth argument, every subscriber instead connects over a local socket and reads its frames on its own thread.
+ * For example, to watch 10000 subscribers for 5000 moves with queues of 16 frames, and then 200 subscribers over sockets:
+ * <pre>
+ *     java SpectatorBenchmark 10000 5000 16
+ *     java SpectatorBenchmark 200 5000 16 socket
+ * </pre>
+ *
+ * @version 2026/10/18
+ */
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SpectatorBenchmark {
+    /**
+     * Runs the benchmark.
+     * The arguments are optionally the number of subscribers, the number of moves, the queue capacity of each subscriber,
+     * and socket to send the frames over local sockets.
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        int subscribers = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int queueCapacity = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        boolean isOverSockets = args.length > 3 && args[3].equalsIgnoreCase("socket");
+        Minesweeper game = new Minesweeper(Minesweeper.MAX_ROW_AMOUNT, Minesweeper.MAX_COLUMN_AMOUNT, 15, BoardTopology.RECTANGLE, 1);
+        SpectatorBroadcaster broadcaster = new SpectatorBroadcaster(game, queueCapacity);
+        AtomicLong deliveries = new AtomicLong();
+        Random random = new Random(1);
+        ServerSocket server = null;
+        Thread consumers[];
+        long resyncs = 0;
+
+        if(isOverSockets) {
+            server = new ServerSocket(0, subscribers, InetAddress.getLoopbackAddress());
+            consumers = startSocketConsumers(broadcaster, server, subscribers, deliveries);
+        }
+        else {
+            consumers = startConsumers(broadcaster, subscribers, deliveries);
+        }
+
+        long startTime = System.nanoTime();
+        int rows = game.getRows();
+        int columns = game.getColumns();
+
+        for(int move = 0; move < moves; move++) {
+            if(game.isOver() || game.isWon()) {
+                game.randomizeBoard(random.nextLong());
+            }
+            else {
+                int row;
+                int column;
+
+                do {
+                    row = random.nextInt(rows);
+                    column = random.nextInt(columns);
+                } while(game.isVisibleAt(row, column) || game.isFlagAt(row, column));
+
+                // flag most mines rather than losing straight away, so games last long enough to stream plenty of deltas
+                if(game.isMineAt(row, column) && random.nextInt(10) > 0) {
+                    game.flagAt(row, column);
+                }
+                else {
+                    game.playAt(row, column);
+                }
+            }
+            resyncs += broadcaster.publish();
+        }
+        double publishSeconds = (System.nanoTime() - startTime) / 1e9;
+
+        broadcaster.close();
+        for(Thread consumer : consumers) {
+            consumer.join();
+        }
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        if(server != null) {
+            server.close();
+        }
+
+        System.out.printf("Subscribers: %d  Moves: %d  Queue capacity: %d  Consumers: %s%n", subscribers, moves, queueCapacity,
+                isOverSockets ? "a thread per local socket" : consumers.length + " threads");
+        System.out.printf("Published %.0f moves/s, offering %.0f frames/s%n", moves / publishSeconds, moves * (double) subscribers / publishSeconds);
+        System.out.printf("Applied %d frames, %.0f frames/s until every subscriber had caught up%n", deliveries.get(), deliveries.get() / seconds);
+        System.out.printf("Slow subscriber resyncs: %d, %.0f/s, %.1f%% of frames offered%n",
+                resyncs, resyncs / publishSeconds, resyncs * 100.0 / ((double) moves * subscribers));
+    }
+
+    /**
+     * Subscribes the given number of subscribers and starts a thread for each processor that drains its share of them into views.
+     * Only frames a view actually applies are counted.
+     */
+    private static Thread[] startConsumers(SpectatorBroadcaster broadcaster, int subscribers, AtomicLong deliveries) {
+        int consumerThreads = Runtime.getRuntime().availableProcessors();
+        SpectatorBroadcaster.Subscription subscriptions[] = new SpectatorBroadcaster.Subscription[subscribers];
+        Thread consumers[] = new Thread[consumerThreads];
+
+        for(int counter = 0; counter < subscribers; counter++) {
+            subscriptions[counter] = broadcaster.subscribe();
+        }
+
+        for(int thread = 0; thread < consumerThreads; thread++) {
+            final int firstSubscription = thread;
+
+            consumers[thread] = new Thread(new Runnable() {
+                public void run() {
+                    SpectatorBroadcaster.View views[] = new SpectatorBroadcaster.View[subscribers];
+                    long applied = 0;
+                    boolean isDone = false;
+
+                    while(!isDone) {
+                        isDone = true;
+                        for(int index = firstSubscription; index < subscribers; index += consumerThreads) {
+                            // checked before draining, so the frames published before closing are still counted
+                            boolean wasClosed = subscriptions[index].isClosed();
+
+                            if(views[index] == null) {
+                                views[index] = new SpectatorBroadcaster.View();
+                            }
+                            for(byte frame[] = subscriptions[index].poll(); frame != null; frame = subscriptions[index].poll()) {
+                                if(views[index].apply(frame)) {
+                                    applied++;
+                                }
+                            }
+                            isDone &= wasClosed;
+                        }
+                    }
+                    deliveries.addAndGet(applied);
+                }
+            });
+            consumers[thread].start();
+        }
+        return consumers;
+    }
+
+    /**
+     * Connects the given number of subscribers to the broadcaster over local sockets, each read into a view on its own thread,
+     * and waits until every one of them has been subscribed.
+     * Only frames a view actually applies are counted.
+     */
+    private static Thread[] startSocketConsumers(SpectatorBroadcaster broadcaster, ServerSocket server, int subscribers,
+                                                 AtomicLong deliveries) throws InterruptedException {
+        Thread consumers[] = new Thread[subscribers];
+        Thread acceptor = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    broadcaster.serve(server);
+                }
+                catch(IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "Spectator server");
+
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        for(int counter = 0; counter < subscribers; counter++) {
+            consumers[counter] = new Thread(new Runnable() {
+                public void run() {
+                    SpectatorBroadcaster.View view = new SpectatorBroadcaster.View();
+                    long applied = 0;
+
+                    try(Socket socket = new Socket(server.getInetAddress(), server.getLocalPort())) {
+                        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+
+                        for(byte frame[] = SpectatorBroadcaster.readFrame(in); frame != null; frame = SpectatorBroadcaster.readFrame(in)) {
+                            if(view.apply(frame)) {
+                                applied++;
+                            }
+                        }
+                    }
+                    catch(IOException e) {
+                        e.printStackTrace();
+                    }
+                    deliveries.addAndGet(applied);
+                }
+            });
+            consumers[counter].start();
+        }
+
+        // spectators that connect are only sent their first snapshot by a publish, which sends nothing else while the board is unchanged
+        while(broadcaster.getSubscribers() < subscribers) {
+            broadcaster.publish();
+            Thread.sleep(10);
+        }
+        return consumers;
+    }
+}
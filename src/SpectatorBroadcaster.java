@@ -0,0 +1,585 @@
+/**
+ * A class used to let many spectators watch a live game of minesweeper.
+ * It listens to the game and collects the cells that changed until publish is called,
+ * then encodes them into a single compact delta frame that is shared by every subscriber.
+ * Changes made between two publishes are coalesced into one frame, so a busy game can simply publish less often.
+ * Every subscriber has a small bounded queue of frames. A subscriber that falls so far behind that its queue is full
+ * has its queue replaced by a single snapshot of the whole board, so slow spectators never hold up the game or use unbounded memory.
+ * For example:
+ * <pre>
+ *     SpectatorBroadcaster broadcaster = new SpectatorBroadcaster(minesweeper, 16);
+ *     SpectatorBroadcaster.Subscription subscription = broadcaster.subscribe();
+ *     minesweeper.playAt(0, 0);
+ *     broadcaster.publish();
+ *
+ *     SpectatorBroadcaster.View view = new SpectatorBroadcaster.View();
+ *     for(byte frame[] = subscription.poll(); frame != null; frame = subscription.poll()) {
+ *         view.apply(frame);
+ *     }
+ *     System.out.println(view);
+ * </pre>
+ * Spectators can also watch over sockets, where serve forwards frames to every spectator that connects and readFrame reads them on the other end:
+ * <pre>
+ *     broadcaster.serve(new ServerSocket(port));
+ *
+ *     DataInputStream in = new DataInputStream(new BufferedInputStream(new Socket(host, port).getInputStream()));
+ *     for(byte frame[] = SpectatorBroadcaster.readFrame(in); frame != null; frame = SpectatorBroadcaster.readFrame(in)) {
+ *         view.apply(frame);
+ *     }
+ * </pre>
+ * <p>
+ * Every frame starts with a one byte type, a four byte sequence number, and a one byte game status.
+ * A delta frame then holds the number of changed cells, followed by each changed cell as the gap from the previous changed cell and its state.
+ * A snapshot frame then holds the number of rows and columns, followed by the state of every cell packed two to a byte.
+ * Counts, gaps, rows, and columns are written as variable length integers, seven bits to a byte.
+ *
+ * @version 2026/10/18
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+public final class SpectatorBroadcaster implements Minesweeper.Listener {
+    public static final byte DELTA_FRAME = 1, SNAPSHOT_FRAME = 2;
+    public static final byte PLAYING_STATUS = 0, OVER_STATUS = 1, WON_STATUS = 2;
+    private boolean isClosed;
+    private boolean needsSnapshot;
+    private byte lastStatus;
+    private int pendingCount;
+    private int queueCapacity;
+    private int sequence;
+    private int length;
+    private byte buffer[] = new byte[256];
+    private byte states[] = new byte[0];
+    private long pendingCells[];
+    private Minesweeper game;
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<Subscription> joiningSubscriptions = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a broadcaster for the given game.
+     *
+     * @param game          the game that is watched
+     * @param queueCapacity the number of frames each subscriber can fall behind by before it is sent a snapshot instead
+     */
+    public SpectatorBroadcaster(Minesweeper game, int queueCapacity) {
+        if(queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be at least 1: " + queueCapacity);
+        }
+        this.game = game;
+        this.queueCapacity = queueCapacity;
+        pendingCells = new long[(game.getRows() * game.getColumns() + 63) / 64];
+        lastStatus = getStatus();
+        game.addListener(this);
+    }
+
+    /**
+     * Adds a new subscriber, whose first frame is a snapshot of the whole board.
+     * The snapshot carries the sequence number of the last published frame, so the next delta follows straight on from it.
+     * It is encoded on the calling thread, which should be the thread that plays the game.
+     */
+    public synchronized Subscription subscribe() {
+        Subscription subscription = new Subscription(queueCapacity);
+
+        subscription.frames.offer(encodeSnapshot());
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Stops listening to the game and closes every subscription.
+     */
+    public synchronized void close() {
+        isClosed = true;
+        game.removeListener(this);
+        subscriptions.addAll(joiningSubscriptions);
+        joiningSubscriptions.clear();
+        for(Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+        subscriptions.clear();
+    }
+
+    /**
+     * Accepts spectators connecting to the given server socket until it is closed.
+     * Each spectator is subscribed and has its frames written to it by Subscription.forwardTo on its own thread,
+     * and is unsubscribed once it disconnects or the broadcaster is closed.
+     * Since the board can only be read on the thread that plays the game, a spectator is sent its first snapshot by the next publish.
+     * This blocks, so it is meant to be run on its own thread.
+     *
+     * @param server the server socket spectators connect to
+     */
+    public void serve(ServerSocket server) throws IOException {
+        while(!server.isClosed()) {
+            Socket socket;
+
+            try {
+                socket = server.accept();
+            }
+            catch(SocketException e) {
+                if(server.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+
+            Subscription subscription = new Subscription(queueCapacity);
+            Thread forwarder = new Thread(new Runnable() {
+                public void run() {
+                    try(Socket connection = socket) {
+                        connection.setTcpNoDelay(true);
+                        subscription.forwardTo(new BufferedOutputStream(connection.getOutputStream(), 1 << 16));
+                    }
+                    catch(IOException | InterruptedException e) {}
+                    finally {
+                        subscription.close();
+                    }
+                }
+            }, "Spectator " + socket.getRemoteSocketAddress());
+            forwarder.setDaemon(true);
+            forwarder.start();
+            synchronized(this) {
+                if(isClosed) {
+                    subscription.close();
+                }
+                else {
+                    joiningSubscriptions.add(subscription);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a single frame written by Subscription.forwardTo from the given stream.
+     *
+     * @param in the stream the frames are read from
+     * @return   the frame, or null if the stream ended between two frames
+     * @throws EOFException if the stream ended partway through a frame
+     */
+    public static byte[] readFrame(DataInputStream in) throws IOException {
+        int first = in.read();
+
+        if(first == -1) {
+            return null;
+        }
+
+        int length = first << 24 | in.readUnsignedByte() << 16 | in.readUnsignedByte() << 8 | in.readUnsignedByte();
+        if(length < 6) {
+            throw new IOException("a frame is at least 6 bytes long, but got a length of " + length);
+        }
+
+        byte frame[] = new byte[length];
+        in.readFully(frame);
+        return frame;
+    }
+
+    /**
+     * Returns the number of open subscriptions.
+     */
+    public int getSubscribers() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Records that the given cell changed.
+     */
+    @Override
+    public synchronized void cellChanged(int row, int column) {
+        int index = row * game.getColumns() + column;
+        long bit = 1L << index;
+
+        if(index >>> 6 >= pendingCells.length) {
+            needsSnapshot = true;
+        }
+        else if((pendingCells[index >>> 6] & bit) == 0) {
+            pendingCells[index >>> 6] |= bit;
+            pendingCount++;
+        }
+    }
+
+    /**
+     * Records that every cell may have changed, so the next frame is a snapshot.
+     */
+    @Override
+    public synchronized void boardChanged() {
+        needsSnapshot = true;
+    }
+
+    /**
+     * Sends every change made since the last publish to every subscriber as a single frame.
+     * Nothing is sent if nothing changed.
+     * This has to be called on the thread that plays the game.
+     *
+     * @return the number of subscribers that had fallen behind and were sent a snapshot instead
+     */
+    public synchronized int publish() {
+        byte status = getStatus();
+        byte frame[];
+        byte snapshot[] = null;
+        int resyncs = 0;
+
+        // a joining subscriber's snapshot carries the last published sequence number, so the frame about to be sent follows straight on from it
+        for(Subscription subscription = joiningSubscriptions.poll(); subscription != null; subscription = joiningSubscriptions.poll()) {
+            subscription.frames.offer(encodeSnapshot());
+            subscriptions.add(subscription);
+        }
+
+        int size = game.getRows() * game.getColumns();
+
+        if(needsSnapshot || pendingCells.length != (size + 63) / 64) {
+            sequence++;
+            frame = snapshot = encodeSnapshot();
+            pendingCells = new long[(size + 63) / 64];
+            needsSnapshot = false;
+        }
+        else if(pendingCount > 0 || status != lastStatus) {
+            sequence++;
+            frame = encodeDelta();
+            Arrays.fill(pendingCells, 0);
+        }
+        else {
+            return 0;
+        }
+        pendingCount = 0;
+        lastStatus = status;
+
+        for(Subscription subscription : subscriptions) {
+            if(subscription.isClosed) {
+                subscriptions.remove(subscription);
+            }
+            else if(!subscription.frames.offer(frame)) {
+                if(snapshot == null) {
+                    snapshot = encodeSnapshot();
+                }
+                subscription.frames.clear();
+                subscription.frames.offer(snapshot);
+                subscription.resyncs++;
+                resyncs++;
+            }
+        }
+        return resyncs;
+    }
+
+    /**
+     * Encodes every pending cell into a delta frame with the current sequence number.
+     */
+    private byte[] encodeDelta() {
+        int columns = game.getColumns();
+        int previousIndex = -1;
+
+        startFrame(DELTA_FRAME);
+        writeVarInt(pendingCount);
+        for(int word = 0; word < pendingCells.length; word++) {
+            long bits = pendingCells[word];
+
+            while(bits != 0) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+
+                writeVarInt(index - previousIndex - 1);
+                writeByte(encodeState(game.getStateAt(index / columns, index % columns)));
+                previousIndex = index;
+                bits &= bits - 1;
+            }
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Encodes the whole board into a snapshot frame with the current sequence number.
+     * What the player can see of the whole board is read in one go before it is packed.
+     */
+    private byte[] encodeSnapshot() {
+        int rows = game.getRows();
+        int columns = game.getColumns();
+        int size = rows * columns;
+
+        if(states.length < size) {
+            states = new byte[size];
+        }
+        game.getStatesIn(0, 0, rows, columns, states, 0);
+
+        startFrame(SNAPSHOT_FRAME);
+        writeVarInt(rows);
+        writeVarInt(columns);
+        for(int index = 0; index < size; index += 2) {
+            int high = encodeState(states[index]);
+            int low = index + 1 < size ? encodeState(states[index + 1]) : 0;
+
+            writeByte(high << 4 | low);
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Starts a new frame of the given type in the buffer.
+     */
+    private void startFrame(byte type) {
+        length = 0;
+        writeByte(type);
+        writeByte(sequence >>> 24);
+        writeByte(sequence >>> 16);
+        writeByte(sequence >>> 8);
+        writeByte(sequence);
+        writeByte(getStatus());
+    }
+
+    /**
+     * Appends a single byte to the buffer, growing it if needed.
+     */
+    private void writeByte(int value) {
+        if(length == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    /**
+     * Appends a non-negative integer to the buffer, seven bits to a byte with the high bit set on every byte but the last.
+     */
+    private void writeVarInt(int value) {
+        while((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    /**
+     * Returns the status of the game.
+     */
+    private byte getStatus() {
+        if(game.isOver()) {
+            return OVER_STATUS;
+        }
+        return game.isWon() ? WON_STATUS : PLAYING_STATUS;
+    }
+
+    /**
+     * Returns the four bit code of the given state, where a visible mine is stored as 15.
+     */
+    private static int encodeState(int state) {
+        return state & 0x0F;
+    }
+
+    /**
+     * Returns the state of the given four bit code.
+     */
+    private static int decodeState(int code) {
+        return code == 0x0F ? Minesweeper.MINE_VALUE : code;
+    }
+
+    /**
+     * A single spectator's queue of frames.
+     */
+    public static final class Subscription {
+        private volatile boolean isClosed;
+        private volatile int resyncs;
+        private final ArrayBlockingQueue<byte[]> frames;
+
+        private Subscription(int queueCapacity) {
+            frames = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        /**
+         * Returns the next frame, or null if there is none waiting.
+         */
+        public byte[] poll() {
+            return frames.poll();
+        }
+
+        /**
+         * Returns the next frame, waiting up to the given time for one to arrive, or null if none did.
+         */
+        public byte[] poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return frames.poll(timeout, unit);
+        }
+
+        /**
+         * Returns the number of times this subscriber fell behind and was sent a snapshot instead.
+         */
+        public int getResyncs() {
+            return resyncs;
+        }
+
+        /**
+         * Returns true if this subscription was closed, false otherwise.
+         */
+        public boolean isClosed() {
+            return isClosed;
+        }
+
+        /**
+         * Closes this subscription, so no more frames are sent to it.
+         */
+        public void close() {
+            isClosed = true;
+        }
+
+        /**
+         * Writes every frame to the given stream, each one prefixed by its four byte length,
+         * until this subscription is closed and every frame sent before then has been written.
+         * Frames that are already waiting are written together before the stream is flushed.
+         * This is meant to be run on its own thread for each spectator connected over a socket, as serve does.
+         *
+         * @param out the stream the frames are written to
+         */
+        public void forwardTo(OutputStream out) throws IOException, InterruptedException {
+            DataOutputStream data = new DataOutputStream(out);
+            boolean wasClosed = false;
+
+            while(!wasClosed) {
+                // checked before draining, so the frames sent before closing are still written
+                wasClosed = isClosed;
+                byte frame[] = frames.poll(100, TimeUnit.MILLISECONDS);
+
+                while(frame != null) {
+                    data.writeInt(frame.length);
+                    data.write(frame);
+                    frame = frames.poll();
+                }
+                data.flush();
+            }
+        }
+    }
+
+    /**
+     * A spectator's copy of the board, rebuilt from frames.
+     */
+    public static final class View {
+        private boolean isWaitingForSnapshot = true;
+        private byte status;
+        private int columns;
+        private int rows;
+        private int sequence;
+        private byte states[] = new byte[0];
+
+        /**
+         * Applies the given frame to this view.
+         * A delta frame that does not directly follow the last applied frame is skipped,
+         * and every frame after it is skipped until the next snapshot arrives.
+         *
+         * @param frame the frame
+         * @return      true if the frame was applied, false if it was skipped
+         */
+        public boolean apply(byte frame[]) {
+            int frameSequence = (frame[1] & 0xFF) << 24 | (frame[2] & 0xFF) << 16 | (frame[3] & 0xFF) << 8 | (frame[4] & 0xFF);
+            int position[] = {6};
+
+            if(frame[0] == SNAPSHOT_FRAME) {
+                rows = readVarInt(frame, position);
+                columns = readVarInt(frame, position);
+                if(states.length != rows * columns) {
+                    states = new byte[rows * columns];
+                }
+                for(int index = 0; index < states.length; index++) {
+                    int packed = frame[position[0] + index / 2];
+
+                    states[index] = (byte) decodeState(index % 2 == 0 ? packed >>> 4 & 0x0F : packed & 0x0F);
+                }
+                isWaitingForSnapshot = false;
+            }
+            else if(isWaitingForSnapshot || frameSequence != sequence + 1) {
+                isWaitingForSnapshot = true;
+                return false;
+            }
+            else {
+                int count = readVarInt(frame, position);
+                int index = -1;
+
+                for(int counter = 0; counter < count; counter++) {
+                    index += readVarInt(frame, position) + 1;
+                    states[index] = (byte) decodeState(frame[position[0]++]);
+                }
+            }
+            sequence = frameSequence;
+            status = frame[5];
+            return true;
+        }
+
+        /**
+         * Reads a variable length integer from the given frame, moving the given position past it.
+         */
+        private static int readVarInt(byte frame[], int position[]) {
+            int value = 0;
+            int shift = 0;
+            byte current;
+
+            do {
+                current = frame[position[0]++];
+                value |= (current & 0x7F) << shift;
+                shift += 7;
+            } while((current & 0x80) != 0);
+            return value;
+        }
+
+        /**
+         * Returns the number of rows on the board.
+         */
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * Returns the number of columns on the board.
+         */
+        public int getColumns() {
+            return columns;
+        }
+
+        /**
+         * Returns the sequence number of the last applied frame.
+         */
+        public int getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Returns the state of the given cell, as returned by Minesweeper.getStateAt.
+         */
+        public int getStateAt(int row, int column) {
+            return states[row * columns + column];
+        }
+
+        /**
+         * Returns true if the game is over, false otherwise.
+         */
+        public boolean isOver() {
+            return status == OVER_STATUS;
+        }
+
+        /**
+         * Returns true if the game is won, false otherwise.
+         */
+        public boolean isWon() {
+            return status == WON_STATUS;
+        }
+
+        /**
+         * Returns a nicely formatted string of the board, in the same format as Minesweeper.toString.
+         */
+        @Override
+        public String toString() {
+            StringBuilder boardDisplay = new StringBuilder(rows * columns + columns + 1);
+
+            for(int row = 0; row < rows; row++) {
+                for(int column = 0; column < columns; column++) {
+                    boardDisplay.append(Minesweeper.getGlyph(getStateAt(row, column)));
+                }
+                boardDisplay.append('\n');
+            }
+            return boardDisplay.toString();
+        }
+    }
+}